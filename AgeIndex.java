@@ -0,0 +1,136 @@
+/**
+ * AgeIndex keeps one bucket of student IDs per age
+ * Valid ages are 1-150 (see StudentValidator), so the index is just an array of
+ * 150 bitmaps. A range query walks the buckets of the range, and counting
+ * only adds up their sizes - no student is looked at.
+ *
+ * Ages outside 1-150 can still come from an old CSV file. Those few students are
+ * kept in a separate ID -> age map and checked one by one.
+ */
+class AgeIndex {
+    public static final int MIN_AGE = 1;
+    public static final int MAX_AGE = 150;
+    
+    private final CompressedBitmap[] buckets = new CompressedBitmap[MAX_AGE + 1];  // age -> IDs
+    private final IntLongHashMap outside = new IntLongHashMap();                   // ID -> age, for other ages
+    
+    /**
+     * Adds a student to the bucket of an age
+     * @param id - student ID
+     * @param age - student age
+     */
+    public void add(int id, int age) {
+        if (age < MIN_AGE || age > MAX_AGE) {
+            outside.put(id, age);
+            return;
+        }
+        CompressedBitmap bucket = buckets[age];
+        if (bucket == null) {
+            bucket = new CompressedBitmap();
+            buckets[age] = bucket;
+        }
+        bucket.add(id);
+    }
+    
+    /**
+     * Removes a student from the bucket of an age
+     * @param id - student ID
+     * @param age - the age the student was added with
+     */
+    public void remove(int id, int age) {
+        if (age < MIN_AGE || age > MAX_AGE) {
+            outside.remove(id);
+        } else if (buckets[age] != null) {
+            buckets[age].remove(id);
+        }
+    }
+    
+    /**
+     * Finds the students whose age is in a range
+     * @param min - lowest age (inclusive)
+     * @param max - highest age (inclusive)
+     * @return IDs ordered by age, then by ID (ages outside 1-150 come last)
+     */
+    public int[] ids(int min, int max) {
+        int[] ids = new int[count(min, max)];
+        int found = 0;
+        for (int age = Math.max(min, MIN_AGE); age <= Math.min(max, MAX_AGE); age++) {
+            if (buckets[age] != null) {
+                int[] bucket = buckets[age].toArray();
+                System.arraycopy(bucket, 0, ids, found, bucket.length);
+                found += bucket.length;
+            }
+        }
+        if (outside.size() > 0 && (min < MIN_AGE || max > MAX_AGE)) {
+            int[] next = { found };
+            outside.forEach((id, age) -> {
+                if (age >= min && age <= max) {
+                    ids[next[0]++] = id;
+                }
+            });
+        }
+        return ids;
+    }
+    
+    /**
+     * Finds the students whose age is in a range, as one bitmap
+     * @param min - lowest age (inclusive)
+     * @param max - highest age (inclusive)
+     * @return new bitmap of the IDs (the caller may change it)
+     */
+    public CompressedBitmap bitmap(int min, int max) {
+        CompressedBitmap ids = new CompressedBitmap();
+        for (int age = Math.max(min, MIN_AGE); age <= Math.min(max, MAX_AGE); age++) {
+            if (buckets[age] != null) {
+                ids = CompressedBitmap.or(ids, buckets[age]);
+            }
+        }
+        if (outside.size() > 0 && (min < MIN_AGE || max > MAX_AGE)) {
+            CompressedBitmap result = ids;
+            outside.forEach((id, age) -> {
+                if (age >= min && age <= max) {
+                    result.add(id);
+                }
+            });
+        }
+        return ids;
+    }
+    
+    /**
+     * @return approximate heap used by the index, in bytes
+     */
+    public long memoryBytes() {
+        long bytes = 16 + buckets.length * 4L + outside.size() * 12L;
+        for (CompressedBitmap bucket : buckets) {
+            if (bucket != null) {
+                bytes += bucket.memoryBytes();
+            }
+        }
+        return bytes;
+    }
+    
+    /**
+     * Counts the students whose age is in a range
+     * @param min - lowest age (inclusive)
+     * @param max - highest age (inclusive)
+     * @return number of students
+     */
+    public int count(int min, int max) {
+        int count = 0;
+        for (int age = Math.max(min, MIN_AGE); age <= Math.min(max, MAX_AGE); age++) {
+            if (buckets[age] != null) {
+                count += buckets[age].cardinality();
+            }
+        }
+        if (outside.size() > 0 && (min < MIN_AGE || max > MAX_AGE)) {
+            int[] found = { 0 };
+            outside.forEach((id, age) -> {
+                if (age >= min && age <= max) {
+                    found[0]++;
+                }
+            });
+            count += found[0];
+        }
+        return count;
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * BulkResult tells what happened to one item of a bulk operation
+ * (StudentManager.addAll, patchAll and removeAll return one per item, in input order)
+ */
+class BulkResult {
+    
+    /**
+     * Outcome of one item
+     */
+    enum Status {
+        ADDED,
+        UPDATED,
+        DELETED,
+        DUPLICATE_ID,     // add: the ID is already taken (also by an earlier item of the batch)
+        DUPLICATE_EMAIL,  // add or update: another student has the email, see getMessage()
+        NOT_FOUND,        // update or delete: no student with this ID
+        INVALID           // details failed validation, see getMessage()
+    }
+    
+    private final int id;
+    private final Status status;
+    private final String message;
+    
+    /**
+     * Constructor
+     * @param id - student ID of the item
+     * @param status - what happened
+     * @param message - reason for INVALID and DUPLICATE_EMAIL, null otherwise
+     */
+    public BulkResult(int id, Status status, String message) {
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    /**
+     * @return true if the item was applied
+     */
+    public boolean isSuccess() {
+        return status == Status.ADDED || status == Status.UPDATED || status == Status.DELETED;
+    }
+    
+    @Override
+    public String toString() {
+        return id + ": " + status + (message != null ? " (" + message + ")" : "");
+    }
+}
@@ -0,0 +1,390 @@
+import java.util.Arrays;
+
+/**
+ * CompressedBitmap is a set of student IDs stored as a compressed bitmap
+ * (the "Roaring" layout). The IDs are split into chunks of 65536 by their high
+ * 16 bits, and each chunk picks the smaller of two forms:
+ *   - a sorted char[] of the low 16 bits while it has at most 4096 IDs (2 bytes each)
+ *   - a plain bitmap of 1024 longs (8 KB) once it has more
+ * A grade or an age covers a large share of all students, so its chunks become
+ * bitmaps and AND / OR of two sets is a loop over 1024 longs per chunk.
+ *
+ * IDs are stored with the sign bit flipped, so toArray() returns them in
+ * ascending (signed) order like the other indexes. Not thread-safe.
+ */
+class CompressedBitmap {
+    private static final int ARRAY_MAX = 4096;     // above this an array chunk is bigger than a bitmap
+    private static final int BITMAP_WORDS = 1024;  // 65536 bits
+    
+    private char[] keys = new char[4];             // high 16 bits of each chunk, ascending
+    private Object[] chunks = new Object[4];       // char[] (array form) or long[] (bitmap form)
+    private int[] cardinalities = new int[4];      // IDs in each chunk
+    private int size;                              // chunks in use
+    
+    /**
+     * Adds an ID
+     * @return true if the ID was added, false if it was already in the set
+     */
+    public boolean add(int id) {
+        int value = id ^ Integer.MIN_VALUE;
+        char key = (char) (value >>> 16);
+        char low = (char) value;
+        int index = indexOfKey(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, key, new char[4], 0);
+        }
+        
+        Object chunk = chunks[index];
+        int cardinality = cardinalities[index];
+        if (chunk instanceof long[]) {
+            long[] words = (long[]) chunk;
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) != 0) {
+                return false;
+            }
+            words[low >>> 6] |= bit;
+        } else {
+            char[] values = (char[]) chunk;
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+            if (position >= 0) {
+                return false;
+            }
+            if (cardinality == ARRAY_MAX) {
+                long[] words = toWords(values, cardinality);
+                words[low >>> 6] |= 1L << low;
+                chunks[index] = words;
+            } else {
+                position = -position - 1;
+                if (cardinality == values.length) {
+                    values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+                    chunks[index] = values;
+                }
+                System.arraycopy(values, position, values, position + 1, cardinality - position);
+                values[position] = low;
+            }
+        }
+        cardinalities[index] = cardinality + 1;
+        return true;
+    }
+    
+    /**
+     * Removes an ID
+     * @return true if the ID was removed, false if it was not in the set
+     */
+    public boolean remove(int id) {
+        int value = id ^ Integer.MIN_VALUE;
+        char low = (char) value;
+        int index = indexOfKey((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        
+        Object chunk = chunks[index];
+        int cardinality = cardinalities[index];
+        if (chunk instanceof long[]) {
+            long[] words = (long[]) chunk;
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                return false;
+            }
+            words[low >>> 6] &= ~bit;
+            if (cardinality - 1 == ARRAY_MAX) {
+                chunks[index] = toValues(words, ARRAY_MAX);
+            }
+        } else {
+            char[] values = (char[]) chunk;
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+        }
+        if (cardinality == 1) {
+            removeChunk(index);
+        } else {
+            cardinalities[index] = cardinality - 1;
+        }
+        return true;
+    }
+    
+    /**
+     * @return true if the ID is in the set
+     */
+    public boolean contains(int id) {
+        int value = id ^ Integer.MIN_VALUE;
+        char low = (char) value;
+        int index = indexOfKey((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        Object chunk = chunks[index];
+        if (chunk instanceof long[]) {
+            return (((long[]) chunk)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) chunk, 0, cardinalities[index], low) >= 0;
+    }
+    
+    /**
+     * @return number of IDs in the set
+     */
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += cardinalities[i];
+        }
+        return total;
+    }
+    
+    /**
+     * @return true if the set has no IDs
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * @return the IDs in ascending order
+     */
+    public int[] toArray() {
+        int[] ids = new int[cardinality()];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int high = keys[i] << 16;
+            Object chunk = chunks[i];
+            if (chunk instanceof long[]) {
+                long[] words = (long[]) chunk;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        ids[count++] = (high | w << 6 | Long.numberOfTrailingZeros(word)) ^ Integer.MIN_VALUE;
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] values = (char[]) chunk;
+                for (int v = 0; v < cardinalities[i]; v++) {
+                    ids[count++] = (high | values[v]) ^ Integer.MIN_VALUE;
+                }
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * @return approximate heap used by the set, in bytes
+     */
+    public long memoryBytes() {
+        long bytes = 16 + 3 * 16 + keys.length * 2L + chunks.length * 4L + cardinalities.length * 4L;
+        for (int i = 0; i < size; i++) {
+            Object chunk = chunks[i];
+            bytes += 16 + (chunk instanceof long[] ? BITMAP_WORDS * 8L : ((char[]) chunk).length * 2L);
+        }
+        return bytes;
+    }
+    
+    /**
+     * Creates the set of IDs that are in both sets
+     */
+    public static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.appendChunk(a.keys[i], andChunks(a.chunks[i], a.cardinalities[i],
+                                                        b.chunks[j], b.cardinalities[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Creates the set of IDs that are in at least one of the sets
+     */
+    public static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.appendChunk(a.keys[i], copyChunk(a.chunks[i], a.cardinalities[i]));
+                i++;
+            } else if (i == a.size || b.keys[j] < a.keys[i]) {
+                result.appendChunk(b.keys[j], copyChunk(b.chunks[j], b.cardinalities[j]));
+                j++;
+            } else {
+                result.appendChunk(a.keys[i], orChunks(a.chunks[i], a.cardinalities[i],
+                                                       b.chunks[j], b.cardinalities[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Intersects two chunks
+     * @return the result in its smaller form, or null if it is empty
+     */
+    private static Object andChunks(Object a, int aCount, Object b, int bCount) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] words = new long[BITMAP_WORDS];
+            int count = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] = ((long[]) a)[w] & ((long[]) b)[w];
+                count += Long.bitCount(words[w]);
+            }
+            return count == 0 ? null : count > ARRAY_MAX ? words : toValues(words, count);
+        }
+        if (a instanceof long[]) {
+            return andChunks(b, bCount, a, aCount);  // array form first
+        }
+        char[] values = (char[]) a;
+        char[] kept = new char[Math.min(aCount, b instanceof long[] ? aCount : bCount)];
+        int count = 0;
+        if (b instanceof long[]) {
+            long[] words = (long[]) b;
+            for (int v = 0; v < aCount; v++) {
+                if ((words[values[v] >>> 6] & (1L << values[v])) != 0) {
+                    kept[count++] = values[v];
+                }
+            }
+        } else {
+            char[] other = (char[]) b;
+            int j = 0;
+            for (int v = 0; v < aCount && j < bCount; v++) {
+                while (j < bCount && other[j] < values[v]) {
+                    j++;
+                }
+                if (j < bCount && other[j] == values[v]) {
+                    kept[count++] = values[v];
+                }
+            }
+        }
+        return count == 0 ? null : Arrays.copyOf(kept, count);
+    }
+    
+    /**
+     * Unites two chunks
+     * @return the result in its smaller form
+     */
+    private static Object orChunks(Object a, int aCount, Object b, int bCount) {
+        if (a instanceof char[] && b instanceof char[] && aCount + bCount <= ARRAY_MAX) {
+            char[] values = (char[]) a;
+            char[] other = (char[]) b;
+            char[] merged = new char[aCount + bCount];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < aCount || j < bCount) {
+                if (j == bCount || (i < aCount && values[i] < other[j])) {
+                    merged[count++] = values[i++];
+                } else if (i == aCount || other[j] < values[i]) {
+                    merged[count++] = other[j++];
+                } else {
+                    merged[count++] = values[i++];
+                    j++;
+                }
+            }
+            return Arrays.copyOf(merged, count);
+        }
+        long[] words = a instanceof long[] ? ((long[]) a).clone() : toWords((char[]) a, aCount);
+        if (b instanceof long[]) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] |= ((long[]) b)[w];
+            }
+        } else {
+            char[] other = (char[]) b;
+            for (int v = 0; v < bCount; v++) {
+                words[other[v] >>> 6] |= 1L << other[v];
+            }
+        }
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count > ARRAY_MAX ? words : toValues(words, count);
+    }
+    
+    private static Object copyChunk(Object chunk, int cardinality) {
+        return chunk instanceof long[] ? ((long[]) chunk).clone() : Arrays.copyOf((char[]) chunk, cardinality);
+    }
+    
+    private static long[] toWords(char[] values, int cardinality) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int v = 0; v < cardinality; v++) {
+            words[values[v] >>> 6] |= 1L << values[v];
+        }
+        return words;
+    }
+    
+    private static char[] toValues(long[] words, int cardinality) {
+        char[] values = new char[cardinality];
+        int count = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[count++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+    
+    /**
+     * Adds a chunk after all others (used while building and/or results, whose keys come in order)
+     * @param chunk - char[] of exactly the chunk's size, long[], or null for an empty chunk
+     */
+    private void appendChunk(char key, Object chunk) {
+        if (chunk == null) {
+            return;
+        }
+        int cardinality;
+        if (chunk instanceof long[]) {
+            cardinality = 0;
+            for (long word : (long[]) chunk) {
+                cardinality += Long.bitCount(word);
+            }
+        } else {
+            cardinality = ((char[]) chunk).length;
+        }
+        insertChunk(size, key, chunk, cardinality);
+    }
+    
+    private void insertChunk(int index, char key, Object chunk, int cardinality) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            chunks = Arrays.copyOf(chunks, size * 2);
+            cardinalities = Arrays.copyOf(cardinalities, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(chunks, index, chunks, index + 1, size - index);
+        System.arraycopy(cardinalities, index, cardinalities, index + 1, size - index);
+        keys[index] = key;
+        chunks[index] = chunk;
+        cardinalities[index] = cardinality;
+        size++;
+    }
+    
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(chunks, index + 1, chunks, index, size - index - 1);
+        System.arraycopy(cardinalities, index + 1, cardinalities, index, size - index - 1);
+        size--;
+        chunks[size] = null;
+    }
+    
+    private int indexOfKey(char key) {
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;  // IDs are mostly added in ascending order
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+}
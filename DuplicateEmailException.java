@@ -0,0 +1,26 @@
+/**
+ * Thrown when a student would get an email address that another student already has
+ * Emails are compared case-insensitively and without surrounding spaces.
+ */
+class DuplicateEmailException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+    
+    private final int existingId;
+    
+    /**
+     * Constructor
+     * @param email - the email address that is already taken
+     * @param existingId - ID of the student who has it
+     */
+    public DuplicateEmailException(String email, int existingId) {
+        super("Email " + email + " is already used by student ID " + existingId);
+        this.existingId = existingId;
+    }
+    
+    /**
+     * @return ID of the student who already has the email address
+     */
+    public int getExistingId() {
+        return existingId;
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.*;
+
+/**
+ * EmailDomainIndex keeps a bitmap of student IDs per email domain ("gmail.com")
+ * Most students share a few big providers, so the bitmaps are dense and
+ * "gmail addresses in grade 10" is a bitmap AND with the grade index.
+ * Domains are compared in lowercase; addresses without '@' have no domain.
+ */
+class EmailDomainIndex {
+    private final HashMap<String, CompressedBitmap> domains = new HashMap<>();
+    
+    /**
+     * Adds a student under the domain of an email address
+     * @param id - student ID
+     * @param email - the student's email address
+     */
+    public void add(int id, String email) {
+        String domain = domainOf(email);
+        if (domain != null) {
+            domains.computeIfAbsent(domain, key -> new CompressedBitmap()).add(id);
+        }
+    }
+    
+    /**
+     * Removes a student from the domain of an email address
+     * @param id - student ID
+     * @param email - the email address the student was added with
+     */
+    public void remove(int id, String email) {
+        String domain = domainOf(email);
+        CompressedBitmap ids = domain == null ? null : domains.get(domain);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                domains.remove(domain);
+            }
+        }
+    }
+    
+    /**
+     * @param domain - domain in lowercase, without the '@'
+     * @return IDs of the students at the domain - read only, do not change it
+     */
+    public CompressedBitmap bitmap(String domain) {
+        CompressedBitmap ids = domains.get(domain);
+        return ids != null ? ids : new CompressedBitmap();
+    }
+    
+    /**
+     * @return approximate heap used by the index, in bytes
+     */
+    public long memoryBytes() {
+        long bytes = 48 + domains.size() * 48L;  // map table and entries
+        for (Map.Entry<String, CompressedBitmap> entry : domains.entrySet()) {
+            bytes += 40 + entry.getKey().length() + entry.getValue().memoryBytes();
+        }
+        return bytes;
+    }
+    
+    /**
+     * @return the lowercase domain of an email address, or null if it has no '@'
+     */
+    static String domainOf(String email) {
+        int at = email.lastIndexOf('@');
+        return at < 0 ? null : email.substring(at + 1).trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,535 @@
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * FuzzyNameIndex finds names that are spelled almost like the search text
+ * Names are cut into lowercased words ("Maria Garcia" -> "maria", "garcia") and
+ * every distinct word is stored once in a trie, with a posting list of the IDs
+ * whose name has it. A search walks the trie and computes one row of the edit
+ * distance table per letter (a Levenshtein automaton, built as it goes). Words
+ * with the same beginning share those rows, and as soon as every entry of a row
+ * is above the allowed distance no word below that point can match, so the
+ * branch is skipped. A search therefore visits a small part of the distinct
+ * words and never compares the text with every student's name.
+ *
+ * Distances count inserted, missing, wrong and swapped letters: "jonh" is one
+ * edit away from "john".
+ */
+class FuzzyNameIndex {
+    static final int MAX_DISTANCE = 3;  // every extra edit makes a search many times slower
+    
+    /**
+     * One letter of a word, and the letters that can follow it
+     */
+    private static class Node {
+        char[] letters = new char[0];   // sorted
+        Node[] children = new Node[0];  // children[i] follows letters[i]
+        IntPostingList ids;             // students with a name word ending here, or null
+        
+        Node child(char letter) {
+            int at = Arrays.binarySearch(letters, letter);
+            return at >= 0 ? children[at] : null;
+        }
+        
+        Node addChild(char letter) {
+            int at = Arrays.binarySearch(letters, letter);
+            if (at >= 0) {
+                return children[at];
+            }
+            at = -at - 1;
+            letters = Arrays.copyOf(letters, letters.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(letters, at, letters, at + 1, letters.length - at - 1);
+            System.arraycopy(children, at, children, at + 1, children.length - at - 1);
+            letters[at] = letter;
+            children[at] = new Node();
+            return children[at];
+        }
+    }
+    
+    // a search word with at most this many close words is checked in their
+    // posting lists, one merge per word, instead of with edit distances on the name
+    private static final int PROBE_NODES = 16;
+    
+    private final Node root = new Node();
+    private final IntFunction<String> names;  // student ID -> current name
+    private int wordCount;
+    
+    /**
+     * Constructor
+     * @param names - looks up the current name of an indexed student, used to
+     *                check the other words of a search on the candidates
+     */
+    public FuzzyNameIndex(IntFunction<String> names) {
+        this.names = names;
+    }
+    
+    /**
+     * Adds a student's name to the index
+     * @param id - student ID
+     * @param name - student name
+     */
+    public void add(int id, String name) {
+        for (String word : words(name)) {
+            Node node = root;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.addChild(word.charAt(i));
+            }
+            if (node.ids == null) {
+                node.ids = new IntPostingList();
+                wordCount++;
+            }
+            node.ids.add(id);
+        }
+    }
+    
+    /**
+     * Removes a student's name from the index
+     * Emptied words stay in the trie (searches skip them) and are reused when a
+     * student with that word is added again.
+     * @param id - student ID
+     * @param name - the name the student was added with
+     */
+    public void remove(int id, String name) {
+        for (String word : words(name)) {
+            Node node = root;
+            for (int i = 0; i < word.length() && node != null; i++) {
+                node = node.child(word.charAt(i));
+            }
+            if (node != null && node.ids != null) {
+                node.ids.remove(id);
+            }
+        }
+    }
+    
+    /**
+     * Finds the students whose name has, for every word of the search text, a
+     * word at most maxDistance edits away
+     * @param text - name to search for, e.g. "jonh smiht"
+     * @param maxDistance - edits allowed per word
+     * @param limit - largest number of IDs to return
+     * @return matching IDs, closest first (total edits over all words), then by ID
+     * @throws IllegalArgumentException if maxDistance is not between 0 and MAX_DISTANCE
+     */
+    public int[] search(String text, int maxDistance, int limit) {
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+            throw new IllegalArgumentException("Distance must be between 0 and " + MAX_DISTANCE);
+        }
+        List<String> searchWords = words(text);
+        if (searchWords.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        
+        // start from the search word whose close words have the fewest students
+        List<List<List<Node>>> matches = new ArrayList<>();
+        List<List<Node>> driver = null;
+        int driverSize = Integer.MAX_VALUE;
+        int driverClosest = 0;
+        int closestTotal = 0;  // sum of each word's smallest distance to any name word
+        for (String word : searchWords) {
+            List<List<Node>> byDistance = collect(word, maxDistance);
+            int size = 0;
+            int closest = -1;
+            for (int d = 0; d <= maxDistance; d++) {
+                size += postings(byDistance.get(d));
+                if (closest < 0 && size > 0) {
+                    closest = d;
+                }
+            }
+            if (size == 0) {
+                return new int[0];  // every word has to match something
+            }
+            closestTotal += closest;
+            matches.add(byDistance);
+            if (size < driverSize) {
+                driver = byDistance;
+                driverSize = size;
+                driverClosest = closest;
+            }
+        }
+        int othersClosest = closestTotal - driverClosest;
+        
+        // the other words are checked on each candidate: in the posting lists of
+        // their close words when there are few of those, else on the name itself
+        List<List<List<Node>>> probed = new ArrayList<>();
+        List<String> checked = new ArrayList<>();
+        for (int w = 0; w < searchWords.size(); w++) {
+            List<List<Node>> byDistance = matches.get(w);
+            if (byDistance != driver) {
+                int nodes = 0;
+                for (List<Node> group : byDistance) {
+                    nodes += group.size();
+                }
+                if (nodes <= PROBE_NODES) {
+                    probed.add(byDistance);
+                } else {
+                    checked.add(searchWords.get(w));
+                }
+            }
+        }
+        
+        // go through the driver's close words from the closest; the students of
+        // the next group score at least its distance plus the other words' closest
+        // distances, so once enough students score less than that the search can stop
+        int[][] rows = new int[3][];
+        Ranking ranking = new Ranking();
+        IntLongHashMap seen = new IntLongHashMap();
+        int[] processed = new int[0];  // candidates of the closer groups, in ID order
+        for (int d = 0; d <= maxDistance; d++) {
+            List<Node> group = driver.get(d);
+            if (probed.isEmpty() && checked.isEmpty()) {
+                takeLowestIds(group, d, limit, ranking, seen);
+            } else {
+                int[] candidates = union(group);
+                candidates = without(candidates, processed);  // a closer word already scored them
+                processed = merge(processed, candidates);
+                int[] totals = new int[candidates.length];
+                Arrays.fill(totals, d);
+                for (List<List<Node>> byDistance : probed) {
+                    addDistances(byDistance, candidates, totals);
+                }
+                for (int i = 0; i < candidates.length; i++) {
+                    if (totals[i] >= 0 && !checked.isEmpty()) {
+                        int distance = distanceToName(checked, names.apply(candidates[i]), maxDistance, rows);
+                        totals[i] = distance < 0 ? -1 : totals[i] + distance;
+                    }
+                    if (totals[i] >= 0) {
+                        ranking.add(totals[i], candidates[i]);
+                    }
+                }
+            }
+            if (ranking.size() >= limit && ranking.score(limit - 1) <= d + othersClosest) {
+                break;
+            }
+        }
+        return ranking.ids(limit);
+    }
+    
+    /**
+     * @return number of distinct words in the index (including emptied ones)
+     */
+    public int wordCount() {
+        return wordCount;
+    }
+    
+    /**
+     * Collects the words within maxDistance of the search word, grouped by distance
+     * @return list i holds the words at distance i
+     */
+    private List<List<Node>> collect(String word, int maxDistance) {
+        List<List<Node>> byDistance = new ArrayList<>(maxDistance + 1);
+        for (int d = 0; d <= maxDistance; d++) {
+            byDistance.add(new ArrayList<>());
+        }
+        // a word can be at most word.length() + maxDistance letters long to match
+        int[][] rows = new int[word.length() + maxDistance + 2][word.length() + 1];
+        for (int j = 0; j <= word.length(); j++) {
+            rows[0][j] = j;
+        }
+        for (int i = 0; i < root.letters.length; i++) {
+            walk(root.children[i], root.letters[i], (char) 0, 1, word, maxDistance, rows, byDistance);
+        }
+        return byDistance;
+    }
+    
+    /**
+     * Computes the distance table row of one trie node and goes on to its children
+     * while some prefix of the search word is still within maxDistance
+     * @param letter - the node's letter
+     * @param previousLetter - the letter before it (for swapped letters)
+     * @param depth - length of the word so far; rows[depth - 1] is the parent's row
+     */
+    private static void walk(Node node, char letter, char previousLetter, int depth, String word,
+                             int maxDistance, int[][] rows, List<List<Node>> byDistance) {
+        int[] above = rows[depth - 1];
+        int[] row = rows[depth];
+        row[0] = depth;
+        int rowMin = depth;
+        for (int j = 1; j <= word.length(); j++) {
+            char wanted = word.charAt(j - 1);
+            int cost = Math.min(above[j - 1] + (wanted == letter ? 0 : 1),
+                                Math.min(above[j], row[j - 1]) + 1);
+            if (depth > 1 && j > 1 && letter == word.charAt(j - 2) && previousLetter == wanted) {
+                cost = Math.min(cost, rows[depth - 2][j - 2] + 1);  // swapped letters
+            }
+            row[j] = cost;
+            rowMin = Math.min(rowMin, cost);
+        }
+        int distance = row[word.length()];
+        if (distance <= maxDistance && node.ids != null && !node.ids.isEmpty()) {
+            byDistance.get(distance).add(node);
+        }
+        if (rowMin <= maxDistance && depth + 1 < rows.length) {  // else no longer word is close enough
+            for (int i = 0; i < node.letters.length; i++) {
+                walk(node.children[i], node.letters[i], letter, depth + 1, word, maxDistance, rows, byDistance);
+            }
+        }
+    }
+    
+    /**
+     * Ranks the students of one group when there is only one search word
+     * They all have the same distance, so the lowest IDs of the group win: the
+     * group's posting lists are merged in ID order until the ranking is full.
+     */
+    private static void takeLowestIds(List<Node> group, int distance, int limit,
+                                      Ranking ranking, IntLongHashMap seen) {
+        int[] next = new int[group.size()];
+        while (ranking.size() < limit) {
+            int lowest = Integer.MAX_VALUE;
+            boolean found = false;
+            for (int n = 0; n < next.length; n++) {
+                IntPostingList ids = group.get(n).ids;
+                if (next[n] < ids.size() && ids.get(next[n]) <= lowest) {
+                    lowest = ids.get(next[n]);
+                    found = true;
+                }
+            }
+            if (!found) {
+                return;
+            }
+            for (int n = 0; n < next.length; n++) {
+                IntPostingList ids = group.get(n).ids;
+                if (next[n] < ids.size() && ids.get(next[n]) == lowest) {
+                    next[n]++;  // one name can have two close words
+                }
+            }
+            if (!seen.containsKey(lowest)) {  // a closer word already ranked it
+                seen.put(lowest, distance);
+                ranking.add(distance, lowest);
+            }
+        }
+    }
+    
+    /**
+     * Adds the distance of each candidate's closest word among a search word's
+     * close words to its total, or sets the total to -1 if it has none of them
+     * @param candidates - student IDs in ascending order
+     */
+    private static void addDistances(List<List<Node>> byDistance, int[] candidates, int[] totals) {
+        int[] closest = new int[candidates.length];
+        Arrays.fill(closest, -1);
+        boolean[] found = new boolean[candidates.length];
+        for (int d = 0; d < byDistance.size(); d++) {
+            for (Node node : byDistance.get(d)) {
+                node.ids.markIn(candidates, found);
+            }
+            for (int i = 0; i < candidates.length; i++) {
+                if (found[i] && closest[i] < 0) {
+                    closest[i] = d;
+                }
+            }
+        }
+        for (int i = 0; i < candidates.length; i++) {
+            totals[i] = totals[i] < 0 || closest[i] < 0 ? -1 : totals[i] + closest[i];
+        }
+    }
+    
+    /**
+     * @return the IDs of all nodes of a group, in ascending order without repeats
+     */
+    private static int[] union(List<Node> group) {
+        int[] ids = new int[0];
+        for (Node node : group) {
+            ids = merge(ids, node.ids.toArray());
+        }
+        return ids;
+    }
+    
+    /**
+     * @return the IDs of two sorted arrays together, sorted and without repeats
+     */
+    private static int[] merge(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                merged[count++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                merged[count++] = b[j++];
+            } else {
+                merged[count++] = a[i++];
+                j++;
+            }
+        }
+        return count == merged.length ? merged : Arrays.copyOf(merged, count);
+    }
+    
+    /**
+     * @return the IDs of the sorted array ids that are not in the sorted array removed
+     */
+    private static int[] without(int[] ids, int[] removed) {
+        int[] kept = new int[ids.length];
+        int count = 0;
+        int j = 0;
+        for (int id : ids) {
+            while (j < removed.length && removed[j] < id) {
+                j++;
+            }
+            if (j == removed.length || removed[j] != id) {
+                kept[count++] = id;
+            }
+        }
+        return count == kept.length ? kept : Arrays.copyOf(kept, count);
+    }
+    
+    /**
+     * Adds up, for each search word, the distance to the closest word of a name
+     * @return total distance, or -1 if a search word has no word within maxDistance
+     */
+    private static int distanceToName(List<String> searchWords, String name, int maxDistance, int[][] rows) {
+        String lower = name.toLowerCase();
+        int total = 0;
+        for (String word : searchWords) {
+            int best = maxDistance + 1;
+            int start = 0;
+            for (int i = 0; i <= lower.length() && best > 0; i++) {
+                if (i == lower.length() || isSeparator(lower.charAt(i))) {
+                    if (Math.abs(word.length() - (i - start)) < best) {  // else it cannot be closer
+                        best = Math.min(best, distance(word, lower, start, i, best - 1, rows));
+                    }
+                    start = i + 1;
+                }
+            }
+            if (best > maxDistance) {
+                return -1;
+            }
+            total += best;
+        }
+        return total;
+    }
+    
+    private static int postings(List<Node> nodes) {
+        int total = 0;
+        for (Node node : nodes) {
+            total += node.ids.size();
+        }
+        return total;
+    }
+    
+    /**
+     * Cuts a name into lowercased words at spaces and hyphens, without repeats
+     */
+    static List<String> words(String name) {
+        List<String> words = new ArrayList<>(2);
+        String lower = name.toLowerCase();
+        int start = 0;
+        for (int i = 0; i <= lower.length(); i++) {
+            if (i == lower.length() || isSeparator(lower.charAt(i))) {
+                if (i > start) {
+                    String word = lower.substring(start, i);
+                    if (!words.contains(word)) {
+                        words.add(word);
+                    }
+                }
+                start = i + 1;
+            }
+        }
+        return words;
+    }
+    
+    private static boolean isSeparator(char c) {
+        return Character.isWhitespace(c) || c == '-';
+    }
+    
+    /**
+     * Edit distance between two words, counting a swap of two neighbouring
+     * letters as one edit
+     * @param rows - three reusable rows (new int[3][] on the first call)
+     */
+    static int distance(String a, String b, int[][] rows) {
+        return distance(a, b, 0, b.length(), Integer.MAX_VALUE - 1, rows);
+    }
+    
+    /**
+     * Edit distance between a and the part from..to of b, or max + 1 as soon as
+     * it is known to be more than max
+     */
+    private static int distance(String a, String b, int from, int to, int max, int[][] rows) {
+        int length = to - from;
+        if (rows[0] == null || rows[0].length <= length) {
+            for (int r = 0; r < 3; r++) {
+                rows[r] = new int[length + 8];
+            }
+        }
+        int[] beforeAbove = rows[0];
+        int[] above = rows[1];
+        int[] row = rows[2];
+        for (int j = 0; j <= length; j++) {
+            above[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            row[0] = i;
+            int rowMin = i;
+            char letter = a.charAt(i - 1);
+            for (int j = 1; j <= length; j++) {
+                char wanted = b.charAt(from + j - 1);
+                int cost = Math.min(above[j - 1] + (wanted == letter ? 0 : 1),
+                                    Math.min(above[j], row[j - 1]) + 1);
+                if (i > 1 && j > 1 && letter == b.charAt(from + j - 2) && a.charAt(i - 2) == wanted) {
+                    cost = Math.min(cost, beforeAbove[j - 2] + 1);  // swapped letters
+                }
+                row[j] = cost;
+                rowMin = Math.min(rowMin, cost);
+            }
+            if (rowMin > max) {
+                return max + 1;  // no later row can get back under max
+            }
+            int[] oldest = beforeAbove;
+            beforeAbove = above;
+            above = row;
+            row = oldest;
+        }
+        return Math.min(above[length], max + 1);
+    }
+    
+    /**
+     * Students found so far, as (distance, ID) pairs packed into longs so that
+     * sorting them ranks by distance and then by ID
+     */
+    private static class Ranking {
+        private long[] keys = new long[16];
+        private int size;
+        private boolean sorted = true;
+        
+        void add(int distance, int id) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = (long) distance << 32 | (id ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+            sorted = false;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        /**
+         * @return the distance of the student ranked at the position
+         */
+        int score(int rank) {
+            sort();
+            return (int) (keys[rank] >>> 32);
+        }
+        
+        /**
+         * @return IDs of the best ranked students, at most limit of them
+         */
+        int[] ids(int limit) {
+            sort();
+            int[] ids = new int[Math.min(limit, size)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = (int) keys[i] ^ Integer.MIN_VALUE;
+            }
+            return ids;
+        }
+        
+        private void sort() {
+            if (!sorted) {
+                Arrays.sort(keys, 0, size);
+                sorted = true;
+            }
+        }
+    }
+}
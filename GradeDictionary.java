@@ -0,0 +1,81 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GradeDictionary gives every distinct grade a small integer code
+ * A school only has a handful of grades, so instead of keeping a separate
+ * "10th" String in every Student, each Student keeps the grade's code and
+ * getGrade() returns the one shared String for that code. Comparing grades
+ * is then an int comparison.
+ *
+ * Codes are handed out in the order grades are first seen (0, 1, 2, ...) and
+ * never change while the program runs. They are not stable between runs, so
+ * files must store the grade text (or their own code table, like StudentRecordFile).
+ * Safe to use from many threads.
+ */
+class GradeDictionary {
+    public static final int NO_GRADE = -1;  // code for a null grade
+    
+    private static final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private static volatile String[] grades = new String[16];  // code -> grade
+    private static int count;                                  // guarded by the class lock
+    
+    private GradeDictionary() {
+    }
+    
+    /**
+     * Gets the code of a grade, adding the grade if it is new
+     * @param grade - grade text (null gives NO_GRADE)
+     * @return code of the grade
+     */
+    public static int code(String grade) {
+        if (grade == null) {
+            return NO_GRADE;
+        }
+        Integer code = codes.get(grade);
+        return code != null ? code : add(grade);
+    }
+    
+    /**
+     * Gets the code of a grade without adding it
+     * @return code of the grade, or NO_GRADE if the grade has never been seen
+     */
+    public static int find(String grade) {
+        if (grade == null) {
+            return NO_GRADE;
+        }
+        Integer code = codes.get(grade);
+        return code != null ? code : NO_GRADE;
+    }
+    
+    /**
+     * Gets the shared String for a code
+     * @param code - code returned by code()
+     * @return grade text, or null for NO_GRADE
+     */
+    public static String grade(int code) {
+        return code == NO_GRADE ? null : grades[code];
+    }
+    
+    /**
+     * @return number of distinct grades seen so far
+     */
+    public static synchronized int size() {
+        return count;
+    }
+    
+    private static synchronized int add(String grade) {
+        Integer existing = codes.get(grade);
+        if (existing != null) {
+            return existing;  // added by another thread meanwhile
+        }
+        String[] table = grades;
+        if (count == table.length) {
+            table = Arrays.copyOf(table, count * 2);
+        }
+        table[count] = grade;
+        grades = table;
+        codes.put(grade, count);  // published after the table entry, so readers of the code see it
+        return count++;
+    }
+}
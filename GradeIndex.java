@@ -0,0 +1,78 @@
+import java.util.Arrays;
+
+/**
+ * GradeIndex keeps, for every grade, a bitmap of the IDs of its students
+ * Listing a class then only touches the students in it instead of the whole
+ * roster, and combining a grade with other conditions is a bitmap AND.
+ * Grades are identified by their GradeDictionary code, so the bitmaps sit in
+ * a plain array indexed by code.
+ */
+class GradeIndex {
+    private static final CompressedBitmap EMPTY = new CompressedBitmap();
+    
+    private CompressedBitmap[] postings = new CompressedBitmap[16];  // grade code -> IDs
+    
+    /**
+     * Adds a student to the set of a grade
+     * @param id - student ID
+     * @param gradeCode - code from GradeDictionary (NO_GRADE is not indexed)
+     */
+    public void add(int id, int gradeCode) {
+        if (gradeCode == GradeDictionary.NO_GRADE) {
+            return;
+        }
+        if (gradeCode >= postings.length) {
+            postings = Arrays.copyOf(postings, Math.max(gradeCode + 1, postings.length * 2));
+        }
+        CompressedBitmap ids = postings[gradeCode];
+        if (ids == null) {
+            ids = new CompressedBitmap();
+            postings[gradeCode] = ids;
+        }
+        ids.add(id);
+    }
+    
+    /**
+     * Removes a student from the set of a grade
+     * @param id - student ID
+     * @param gradeCode - the grade the student was added with
+     */
+    public void remove(int id, int gradeCode) {
+        bitmap(gradeCode).remove(id);
+    }
+    
+    /**
+     * @return IDs of the students in a grade, in ascending order
+     */
+    public int[] ids(int gradeCode) {
+        return bitmap(gradeCode).toArray();
+    }
+    
+    /**
+     * @return number of students in a grade
+     */
+    public int count(int gradeCode) {
+        return bitmap(gradeCode).cardinality();
+    }
+    
+    /**
+     * @return IDs of the students in a grade - read only, do not change it
+     */
+    public CompressedBitmap bitmap(int gradeCode) {
+        CompressedBitmap ids = gradeCode >= 0 && gradeCode < postings.length ? postings[gradeCode] : null;
+        return ids != null ? ids : EMPTY;
+    }
+    
+    /**
+     * @return approximate heap used by the index, in bytes
+     */
+    public long memoryBytes() {
+        long bytes = 16 + postings.length * 4L;
+        for (CompressedBitmap ids : postings) {
+            if (ids != null) {
+                bytes += ids.memoryBytes();
+            }
+        }
+        return bytes;
+    }
+}
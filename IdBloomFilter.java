@@ -0,0 +1,162 @@
+import java.util.*;
+
+/**
+ * IdBloomFilter answers "is this student ID maybe taken?" from a few bits
+ * Every ID sets a handful of bits chosen by hashing it; an ID whose bits are not
+ * all set was never added, so the common case - a new ID - is ruled out without
+ * looking at the student index or the storage. An ID whose bits are all set is
+ * only probably taken and has to be checked for real.
+ *
+ * The filter is scalable: when a stage is full a new one is started with twice
+ * the room and half the false positive rate, so the rate over all stages stays
+ * below the configured one however many IDs are added. IDs cannot be taken out;
+ * after deletes the filter is rebuilt from the IDs that are still there.
+ */
+class IdBloomFilter {
+    private static final int GROWTH = 2;            // each stage has room for twice as many IDs
+    private static final double TIGHTENING = 0.5;   // ... with half the false positive rate
+    private static final double LN2 = Math.log(2);
+    
+    /**
+     * One plain Bloom filter, sized for a number of IDs and a false positive rate
+     */
+    private static class Stage {
+        final long[] bits;
+        final long bitCount;
+        final int hashes;
+        final int capacity;
+        int count;
+        
+        Stage(int capacity, double falsePositiveRate) {
+            // optimal size: m = -n ln(p) / ln(2)^2 bits and k = m/n ln(2) hashes
+            long wanted = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+            this.bits = new long[(int) Math.max(1, (wanted + 63) / 64)];
+            this.bitCount = bits.length * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / capacity * LN2));
+            this.capacity = capacity;
+        }
+        
+        void add(long hash1, long hash2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = bitOf(hash1 + i * hash2);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+            count++;
+        }
+        
+        /**
+         * Maps a hash to a bit position, multiplying instead of dividing
+         */
+        long bitOf(long hash) {
+            return Math.multiplyHigh(hash >>> 1, bitCount << 1);
+        }
+        
+        boolean mightContain(long hash1, long hash2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = bitOf(hash1 + i * hash2);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    private final double falsePositiveRate;
+    private Stage[] stages;  // replaced, never changed in place, so readers see a whole array
+    private int count;
+    
+    /**
+     * Constructor - creates an empty filter
+     * @param expectedIds - number of IDs the first stage has room for
+     * @param falsePositiveRate - largest share of absent IDs reported as maybe taken (0 to 1)
+     */
+    public IdBloomFilter(int expectedIds, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        this.falsePositiveRate = falsePositiveRate;
+        // the stage rates p0, p0/2, p0/4, ... add up to at most p0 / (1 - TIGHTENING)
+        this.stages = new Stage[] { new Stage(Math.max(64, expectedIds), falsePositiveRate * (1 - TIGHTENING)) };
+    }
+    
+    /**
+     * Adds an ID
+     * @param id - student ID
+     */
+    public void add(int id) {
+        Stage last = stages[stages.length - 1];
+        if (last.count >= last.capacity) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE, (long) last.capacity * GROWTH);
+            double rate = falsePositiveRate * (1 - TIGHTENING) * Math.pow(TIGHTENING, stages.length);
+            last = new Stage(capacity, rate);
+            Stage[] grown = Arrays.copyOf(stages, stages.length + 1);
+            grown[stages.length] = last;
+            stages = grown;
+        }
+        long hash = mix(id);
+        last.add(hash, mix(hash) | 1);
+        count++;
+    }
+    
+    /**
+     * Checks an ID
+     * @param id - student ID
+     * @return false if the ID was certainly never added, true if it probably was
+     */
+    public boolean mightContain(int id) {
+        long hash = mix(id);
+        long hash2 = mix(hash) | 1;  // odd, so the probes of one ID do not repeat
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * @return number of IDs added
+     */
+    public int count() {
+        return count;
+    }
+    
+    /**
+     * @return the false positive rate the filter was created with
+     */
+    public double falsePositiveRate() {
+        return falsePositiveRate;
+    }
+    
+    /**
+     * @return number of stages the filter has grown to
+     */
+    public int stageCount() {
+        return stages.length;
+    }
+    
+    /**
+     * @return approximate heap used by the filter, in bytes
+     */
+    public long memoryBytes() {
+        long bytes = 32 + 16 + 4L * stages.length;
+        for (Stage stage : stages) {
+            bytes += 40 + 16 + 8L * stage.bits.length;
+        }
+        return bytes;
+    }
+    
+    /**
+     * Spreads the bits of a value over the whole long (the MurmurHash3 finalizer),
+     * so consecutive IDs set unrelated bits
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
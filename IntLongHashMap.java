@@ -0,0 +1,183 @@
+import java.util.Arrays;
+
+/**
+ * IntLongHashMap maps primitive int keys to primitive long values (no boxing at all)
+ * Same design as IntObjectHashMap: open addressing with linear probing and
+ * backward-shift deletion, 50% maximum load. A separate "used" array marks the
+ * occupied slots because every long value is a valid value.
+ */
+class IntLongHashMap {
+    private static final int MIN_CAPACITY = 16;
+    
+    private int[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    
+    /**
+     * Constructor - creates an empty map
+     */
+    public IntLongHashMap() {
+        this(MIN_CAPACITY);
+    }
+    
+    /**
+     * Constructor - creates a map that holds the expected number of keys without growing
+     * @param expectedSize - number of keys expected
+     */
+    public IntLongHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity >>> 1 <= expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+    
+    /**
+     * Finds the value stored for a key
+     * @param key - key to look up
+     * @param missing - value returned when the key is not in the map
+     * @return value for the key, or 'missing'
+     */
+    public long get(int key, long missing) {
+        for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return missing;
+    }
+    
+    /**
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(int key) {
+        for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Stores a value for a key, replacing any previous value
+     */
+    public void put(int key, long value) {
+        int slot = hash(key) & mask;
+        for (; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+    
+    /**
+     * Removes a key from the map
+     * @return true if the key was removed, false if it was not in the map
+     */
+    public boolean remove(int key) {
+        for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * @return number of keys in the map
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Callback for forEach()
+     */
+    interface Visitor {
+        void visit(int key, long value);
+    }
+    
+    /**
+     * Calls the visitor for every key/value pair (in no particular order)
+     */
+    public void forEach(Visitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                visitor.visit(keys[slot], values[slot]);
+            }
+        }
+    }
+    
+    /**
+     * Removes all keys from the map
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+    
+    /**
+     * Empties the slot and moves later entries of the same probe run back into it
+     * (see IntObjectHashMap.shiftBack)
+     */
+    private void shiftBack(int free) {
+        used[free] = false;
+        for (int slot = (free + 1) & mask; used[slot]; slot = (slot + 1) & mask) {
+            int home = hash(keys[slot]) & mask;
+            boolean homeInRange = free <= slot
+                    ? free < home && home <= slot
+                    : free < home || home <= slot;
+            if (!homeInRange) {
+                keys[free] = keys[slot];
+                values[free] = values[slot];
+                used[free] = true;
+                used[slot] = false;
+                free = slot;
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity >>> 1;
+    }
+    
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;  // golden ratio multiplier (Fibonacci hashing)
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,212 @@
+import java.util.Arrays;
+
+/**
+ * IntObjectHashMap maps primitive int keys to objects without boxing the keys
+ * It uses open addressing with linear probing in two flat arrays, so a lookup is a
+ * hash plus (usually) one or two array reads. Removing a key shifts the following
+ * entries back instead of leaving "deleted" markers, so lookups stay fast even
+ * after many deletes.
+ * @param <V> - type of the values (null values are not allowed)
+ */
+class IntObjectHashMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    
+    private int[] keys;
+    private Object[] values;  // null marks an empty slot
+    private int size;
+    private int mask;         // capacity - 1 (capacity is always a power of two)
+    private int resizeAt;     // grow when size reaches this (50% load)
+    
+    /**
+     * Constructor - creates an empty map
+     */
+    public IntObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+    
+    /**
+     * Constructor - creates a map that holds the expected number of keys without growing
+     * @param expectedSize - number of keys expected
+     */
+    public IntObjectHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+    
+    /**
+     * Finds the value stored for a key
+     * @param key - key to look up
+     * @return value for the key, or null if the key is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int[] keys = this.keys;
+        Object[] values = this.values;
+        int mask = values.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            Object value = values[slot];
+            if (value == null) {
+                return null;
+            }
+            if (keys[slot] == key) {
+                return (V) value;
+            }
+        }
+    }
+    
+    /**
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+    
+    /**
+     * Stores a value for a key, replacing any previous value
+     * @param key - key to store
+     * @param value - value to store (must not be null)
+     * @return previous value for the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null values are not supported");
+        }
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            Object current = values[slot];
+            if (current == null) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size >= resizeAt) {
+                    allocateAndRehash(values.length << 1);
+                }
+                return null;
+            }
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return (V) current;
+            }
+        }
+    }
+    
+    /**
+     * Removes a key from the map
+     * @param key - key to remove
+     * @return value that was stored for the key, or null if the key was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            Object current = values[slot];
+            if (current == null) {
+                return null;
+            }
+            if (keys[slot] == key) {
+                shiftBack(slot);
+                size--;
+                return (V) current;
+            }
+        }
+    }
+    
+    /**
+     * @return number of keys in the map
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * @return true if the map has no keys
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Callback for forEach()
+     */
+    interface Visitor<V> {
+        void visit(int key, V value);
+    }
+    
+    /**
+     * Calls the visitor for every key/value pair (in no particular order)
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Visitor<? super V> visitor) {
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                visitor.visit(keys[slot], (V) values[slot]);
+            }
+        }
+    }
+    
+    /**
+     * Removes all keys from the map
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+    
+    /**
+     * Empties the slot and moves later entries of the same probe run back into it,
+     * so that every remaining key is still reachable from its home slot
+     */
+    private void shiftBack(int free) {
+        values[free] = null;
+        for (int slot = (free + 1) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            int home = hash(keys[slot]) & mask;
+            // the entry may move to the free slot only if its home slot is not
+            // (cyclically) between the free slot and its current slot
+            boolean homeInRange = free <= slot
+                    ? free < home && home <= slot
+                    : free < home || home <= slot;
+            if (!homeInRange) {
+                keys[free] = keys[slot];
+                values[free] = values[slot];
+                values[slot] = null;
+                free = slot;
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity >>> 1;
+    }
+    
+    private void allocateAndRehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity >>> 1 <= expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+    
+    /**
+     * Spreads the key bits so sequential IDs do not end up in neighbouring slots
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;  // golden ratio multiplier (Fibonacci hashing)
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,164 @@
+import java.util.Arrays;
+
+/**
+ * IntPostingList is a sorted set of student IDs stored in a plain int array
+ * It is the building block of the search indexes: every indexed value (a trigram,
+ * a grade, ...) keeps the IDs of the students that have it. Keeping the IDs sorted
+ * lets two lists be intersected with a single merge pass.
+ */
+class IntPostingList {
+    private static final int[] EMPTY = new int[0];
+    
+    private int[] ids = EMPTY;
+    private int size;
+    
+    /**
+     * Adds an ID (appending an ID larger than all others - the common case - is O(1))
+     * @return true if the ID was added, false if it was already in the list
+     */
+    public boolean add(int id) {
+        int position;
+        if (size == 0 || ids[size - 1] < id) {
+            position = size;
+        } else {
+            position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return false;
+            }
+            position = -position - 1;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+        return true;
+    }
+    
+    /**
+     * Removes an ID
+     * @return true if the ID was removed, false if it was not in the list
+     */
+    public boolean remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        return true;
+    }
+    
+    /**
+     * @return true if the ID is in the list
+     */
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+    
+    /**
+     * @return number of IDs in the list
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * @return true if the list has no IDs
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * @return ID at the given position (IDs are in ascending order)
+     */
+    public int get(int index) {
+        return ids[index];
+    }
+    
+    /**
+     * @return copy of the IDs in ascending order
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+    
+    /**
+     * Keeps only the IDs of a sorted array that are also in this list
+     * @param sorted - IDs in ascending order
+     * @param length - number of IDs used from the array
+     * @return number of IDs kept (they are moved to the front of the array)
+     */
+    public int retainIn(int[] sorted, int length) {
+        int kept = 0;
+        if (size > length * 16) {
+            // this list is much longer - binary search it instead of walking all of it
+            int from = 0;
+            for (int i = 0; i < length; i++) {
+                int position = Arrays.binarySearch(ids, from, size, sorted[i]);
+                if (position >= 0) {
+                    sorted[kept++] = sorted[i];
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+            return kept;
+        }
+        
+        int i = 0;
+        int j = 0;
+        while (i < length && j < size) {
+            int a = sorted[i];
+            int b = ids[j];
+            if (a == b) {
+                sorted[kept++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return kept;
+    }
+    
+    /**
+     * Marks which IDs of a sorted array are also in this list
+     * @param sorted - IDs in ascending order
+     * @param found - found[i] is set to true if sorted[i] is in this list (and
+     *                left as it is otherwise)
+     */
+    public void markIn(int[] sorted, boolean[] found) {
+        if (size > sorted.length * 16) {
+            // this list is much longer - binary search it instead of walking all of it
+            int from = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                int position = Arrays.binarySearch(ids, from, size, sorted[i]);
+                if (position >= 0) {
+                    found[i] = true;
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+            return;
+        }
+        
+        int i = 0;
+        int j = 0;
+        while (i < sorted.length && j < size) {
+            if (sorted[i] == ids[j]) {
+                found[i++] = true;
+                j++;
+            } else if (sorted[i] < ids[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+    }
+}
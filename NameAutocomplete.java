@@ -0,0 +1,287 @@
+import java.util.*;
+
+/**
+ * NameAutocomplete suggests name words for what has been typed so far
+ * The lowercased words of all names are kept in a radix trie: a chain of
+ * letters without branches is stored as one edge ("ma" -> "ri" -> "a", not
+ * m-a-r-i-a), with the number of students per word. Every node also knows the
+ * largest count below it, so the most common completions of a prefix are found
+ * by always opening the most promising node first; the work depends on how
+ * many completions are asked for, not on how many words share the prefix.
+ */
+class NameAutocomplete {
+    static final int MAX_COMPLETIONS = 50;  // largest limit complete() accepts
+    
+    /**
+     * A suggested word and the number of students whose name has it
+     */
+    static class Completion {
+        private final String word;
+        private final int students;
+        
+        Completion(String word, int students) {
+            this.word = word;
+            this.students = students;
+        }
+        
+        public String getWord() {
+            return word;
+        }
+        
+        public int getStudents() {
+            return students;
+        }
+        
+        @Override
+        public String toString() {
+            return word + " (" + students + ")";
+        }
+    }
+    
+    /**
+     * One edge of the trie and the node it leads to
+     */
+    private static class Node {
+        String label;                   // letters on the edge from the parent
+        char[] firsts = new char[0];    // first letter of each child's label, sorted
+        Node[] children = new Node[0];
+        int count;                      // students with the word that ends here
+        int best;                       // largest count in this subtree
+        
+        Node(String label) {
+            this.label = label;
+        }
+        
+        int childIndex(char first) {
+            return Arrays.binarySearch(firsts, first);
+        }
+        
+        void updateBest() {
+            best = count;
+            for (Node child : children) {
+                best = Math.max(best, child.best);
+            }
+        }
+    }
+    
+    /**
+     * A node still to open, or a word ready to be suggested
+     */
+    private static class Candidate {
+        final Node node;
+        final String text;
+        final boolean word;
+        
+        Candidate(Node node, String text, boolean word) {
+            this.node = node;
+            this.text = text;
+            this.word = word;
+        }
+        
+        int priority() {
+            return word ? node.count : node.best;
+        }
+    }
+    
+    // most students first; among equals, a node's text is a prefix of all its
+    // words, so ordering by text still suggests equal counts alphabetically
+    private static final Comparator<Candidate> MOST_PROMISING =
+        Comparator.comparingInt(Candidate::priority).reversed()
+                  .thenComparing(candidate -> candidate.text)
+                  .thenComparing(candidate -> !candidate.word);
+    
+    private final Node root = new Node("");
+    private int wordCount;
+    
+    /**
+     * Adds the words of a student's name
+     * @param name - student name
+     */
+    public void add(String name) {
+        for (String word : FuzzyNameIndex.words(name)) {
+            add(root, word, 0);
+        }
+    }
+    
+    /**
+     * Removes the words of a student's name
+     * @param name - the name the student was added with
+     */
+    public void remove(String name) {
+        for (String word : FuzzyNameIndex.words(name)) {
+            remove(root, word, 0);
+        }
+    }
+    
+    /**
+     * Finds the most common words that start with a prefix
+     * @param prefix - text typed so far (case-insensitive)
+     * @param limit - largest number of completions to return (1 to MAX_COMPLETIONS)
+     * @return completions, most students first, then alphabetically
+     * @throws IllegalArgumentException if limit is out of range
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        if (limit < 1 || limit > MAX_COMPLETIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_COMPLETIONS);
+        }
+        String lower = prefix.trim().toLowerCase();
+        List<Completion> completions = new ArrayList<>(Math.min(limit, 64));
+        
+        // go down to the node where the prefix ends (it may end inside an edge)
+        Node node = root;
+        String text = "";
+        int i = 0;
+        while (i < lower.length()) {
+            int at = node.childIndex(lower.charAt(i));
+            if (at < 0) {
+                return completions;
+            }
+            Node child = node.children[at];
+            int common = commonLength(child.label, lower, i);
+            if (common < child.label.length() && i + common < lower.length()) {
+                return completions;  // the prefix leaves the edge
+            }
+            text += child.label;
+            node = child;
+            i += common;
+        }
+        
+        PriorityQueue<Candidate> pending = new PriorityQueue<>(MOST_PROMISING);
+        pending.add(new Candidate(node, text, false));
+        while (!pending.isEmpty() && completions.size() < limit) {
+            Candidate next = pending.poll();
+            if (next.word) {
+                completions.add(new Completion(next.text, next.node.count));
+                continue;
+            }
+            if (next.node.count > 0) {
+                pending.add(new Candidate(next.node, next.text, true));
+            }
+            for (Node child : next.node.children) {
+                pending.add(new Candidate(child, next.text + child.label, false));
+            }
+        }
+        return completions;
+    }
+    
+    /**
+     * @return number of distinct words in the trie
+     */
+    public int wordCount() {
+        return wordCount;
+    }
+    
+    /**
+     * @return approximate heap used by the trie, in bytes
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            bytes += 32                                        // node object
+                   + 40 + node.label.length()                  // label String
+                   + 16 + 2L * node.firsts.length              // first letters
+                   + 16 + 4L * node.children.length;           // child references
+            for (Node child : node.children) {
+                pending.push(child);
+            }
+        }
+        return bytes;
+    }
+    
+    private void add(Node node, String word, int i) {
+        if (i == word.length()) {
+            if (node.count++ == 0) {
+                wordCount++;
+            }
+        } else {
+            int at = node.childIndex(word.charAt(i));
+            if (at < 0) {
+                Node leaf = new Node(word.substring(i));
+                leaf.count = 1;
+                leaf.best = 1;
+                insertChild(node, -at - 1, leaf);
+                wordCount++;
+            } else {
+                Node child = node.children[at];
+                int common = commonLength(child.label, word, i);
+                if (common < child.label.length()) {
+                    // the word leaves the edge: split it where they part
+                    Node middle = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    middle.firsts = new char[] { child.label.charAt(0) };
+                    middle.children = new Node[] { child };
+                    middle.best = child.best;
+                    node.children[at] = middle;
+                }
+                add(node.children[at], word, i + common);
+            }
+        }
+        node.updateBest();
+    }
+    
+    /**
+     * @return true if the word was in the trie below this node
+     */
+    private boolean remove(Node node, String word, int i) {
+        if (i == word.length()) {
+            if (node.count == 0) {
+                return false;
+            }
+            if (--node.count == 0) {
+                wordCount--;
+            }
+        } else {
+            int at = node.childIndex(word.charAt(i));
+            if (at < 0) {
+                return false;
+            }
+            Node child = node.children[at];
+            if (!word.startsWith(child.label, i) || !remove(child, word, i + child.label.length())) {
+                return false;
+            }
+            // keep the trie compact: drop unused leaves, join edges that no longer branch
+            if (child.count == 0 && child.children.length == 0) {
+                removeChild(node, at);
+            } else if (child.count == 0 && child.children.length == 1) {
+                Node only = child.children[0];
+                only.label = child.label + only.label;
+                node.children[at] = only;
+            }
+        }
+        node.updateBest();
+        return true;
+    }
+    
+    private static void insertChild(Node node, int at, Node child) {
+        int size = node.children.length;
+        node.firsts = Arrays.copyOf(node.firsts, size + 1);
+        node.children = Arrays.copyOf(node.children, size + 1);
+        System.arraycopy(node.firsts, at, node.firsts, at + 1, size - at);
+        System.arraycopy(node.children, at, node.children, at + 1, size - at);
+        node.firsts[at] = child.label.charAt(0);
+        node.children[at] = child;
+    }
+    
+    private static void removeChild(Node node, int at) {
+        int size = node.children.length;
+        System.arraycopy(node.firsts, at + 1, node.firsts, at, size - at - 1);
+        System.arraycopy(node.children, at + 1, node.children, at, size - at - 1);
+        node.firsts = Arrays.copyOf(node.firsts, size - 1);
+        node.children = Arrays.copyOf(node.children, size - 1);
+    }
+    
+    /**
+     * @return how many letters of label match the text from position start
+     */
+    private static int commonLength(String label, String text, int start) {
+        int length = 0;
+        while (length < label.length() && start + length < text.length()
+               && label.charAt(length) == text.charAt(start + length)) {
+            length++;
+        }
+        return length;
+    }
+}
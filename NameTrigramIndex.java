@@ -0,0 +1,145 @@
+import java.util.Arrays;
+
+/**
+ * NameTrigramIndex answers "name contains ..." searches without scanning every student
+ * Every lowercased name is cut into trigrams (all 3-character pieces, "anna" ->
+ * "ann", "nna") and each trigram keeps a posting list of the IDs whose name has it.
+ * A name can only contain the search text if it has all of the search text's
+ * trigrams, so intersecting those posting lists gives a small candidate set. The
+ * candidates are then checked with a real contains() to drop false matches.
+ */
+class NameTrigramIndex {
+    private static final int GRAM = 3;
+    
+    private final IntObjectHashMap<IntPostingList> postings = new IntObjectHashMap<>();
+    private final IntObjectHashMap<String> names = new IntObjectHashMap<>();  // ID -> lowercased name
+    
+    /**
+     * Adds (or re-adds) a student's name to the index
+     * @param id - student ID
+     * @param name - student name
+     */
+    public void add(int id, String name) {
+        remove(id);
+        String lower = name.toLowerCase();
+        names.put(id, lower);
+        for (int i = 0; i + GRAM <= lower.length(); i++) {
+            int gram = gramKey(lower, i);
+            IntPostingList list = postings.get(gram);
+            if (list == null) {
+                list = new IntPostingList();
+                postings.put(gram, list);
+            }
+            list.add(id);  // ignores the repeated trigrams of one name
+        }
+    }
+    
+    /**
+     * Removes a student's name from the index
+     * @param id - student ID
+     */
+    public void remove(int id) {
+        String lower = names.remove(id);
+        if (lower == null) {
+            return;
+        }
+        for (int i = 0; i + GRAM <= lower.length(); i++) {
+            int gram = gramKey(lower, i);
+            IntPostingList list = postings.get(gram);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Finds the IDs of all students whose name contains the text (case-insensitive)
+     * @param text - text to search for
+     * @return matching IDs in ascending order
+     */
+    public int[] search(String text) {
+        String lower = text.toLowerCase();
+        if (lower.length() < GRAM) {
+            return scan(lower);  // too short to have a trigram
+        }
+        
+        // collect the posting lists of the search trigrams, smallest first
+        int gramCount = lower.length() - GRAM + 1;
+        IntPostingList[] lists = new IntPostingList[gramCount];
+        for (int i = 0; i < gramCount; i++) {
+            lists[i] = postings.get(gramKey(lower, i));
+            if (lists[i] == null) {
+                return new int[0];  // no name has this trigram
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        
+        int[] candidates = lists[0].toArray();
+        int count = candidates.length;
+        for (int i = 1; i < gramCount && count > 0; i++) {
+            if (lists[i] != lists[i - 1]) {  // repeated trigrams share one list
+                count = lists[i].retainIn(candidates, count);
+            }
+        }
+        
+        // verify - having all trigrams does not guarantee they are in the right order
+        int matches = 0;
+        for (int i = 0; i < count; i++) {
+            if (names.get(candidates[i]).contains(lower)) {
+                candidates[matches++] = candidates[i];
+            }
+        }
+        return Arrays.copyOf(candidates, matches);
+    }
+    
+    /**
+     * Estimates how many names contain the text, without searching
+     * @param text - text that would be searched for
+     * @return size of the smallest posting list of the text's trigrams (an upper
+     *         bound), or -1 if the text is too short to use the index
+     */
+    public int estimate(String text) {
+        String lower = text.toLowerCase();
+        if (lower.length() < GRAM) {
+            return -1;
+        }
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i + GRAM <= lower.length(); i++) {
+            IntPostingList list = postings.get(gramKey(lower, i));
+            smallest = Math.min(smallest, list == null ? 0 : list.size());
+        }
+        return smallest;
+    }
+    
+    /**
+     * Checks every indexed name - used for searches shorter than a trigram
+     */
+    private int[] scan(String lower) {
+        int[][] found = { new int[16] };
+        int[] count = { 0 };
+        names.forEach((id, name) -> {
+            if (name.contains(lower)) {
+                if (count[0] == found[0].length) {
+                    found[0] = Arrays.copyOf(found[0], count[0] * 2);
+                }
+                found[0][count[0]++] = id;
+            }
+        });
+        int[] ids = Arrays.copyOf(found[0], count[0]);
+        Arrays.sort(ids);
+        return ids;
+    }
+    
+    /**
+     * Packs three characters into one int key (10 bits each). Characters above
+     * U+03FF can collide, which only adds candidates that verification removes.
+     */
+    private static int gramKey(String s, int start) {
+        return (s.charAt(start) & 0x3FF) << 20
+             | (s.charAt(start + 1) & 0x3FF) << 10
+             | (s.charAt(start + 2) & 0x3FF);
+    }
+}
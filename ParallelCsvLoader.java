@@ -0,0 +1,175 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * ParallelCsvLoader reads students.csv using all CPU cores
+ * The file is memory-mapped and cut into chunks that start and end on a line
+ * boundary. Every chunk is parsed on its own ForkJoinPool thread, and the chunk
+ * results are joined in file order, so the loaded list is exactly what a
+ * line-by-line reader would produce.
+ */
+class ParallelCsvLoader {
+    private static final long MIN_CHUNK_BYTES = 1L << 20;    // 1 MB - smaller chunks are not worth a task
+    private static final long MAX_CHUNK_BYTES = 256L << 20;  // 256 MB - a mapping must stay below 2 GB
+    private static final int BLOCK_BYTES = 64 * 1024;        // bytes copied out of the mapping at a time
+    
+    private final ForkJoinPool pool;
+    
+    /**
+     * Constructor - uses the common ForkJoinPool
+     */
+    public ParallelCsvLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Constructor
+     * @param pool - pool that parses the chunks
+     */
+    public ParallelCsvLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    /**
+     * Loads all students from a CSV file (the first line is the header)
+     * @param file - CSV file to read
+     * @return students in file order
+     * @throws NoSuchFileException if the file does not exist
+     */
+    public List<Student> load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = nextLineStart(channel, 0, size);  // skip header
+            if (dataStart >= size) {
+                return new ArrayList<>();
+            }
+            
+            List<ChunkTask> tasks = new ArrayList<>();
+            long chunkBytes = chunkSize(size - dataStart);
+            long start = dataStart;
+            while (start < size) {
+                long end = start + chunkBytes >= size
+                         ? size
+                         : nextLineStart(channel, start + chunkBytes, size);
+                tasks.add(new ChunkTask(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+                start = end;
+            }
+            
+            // a bad line in any chunk fails the whole load, like the line-by-line reader
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+            
+            int total = 0;
+            for (ChunkTask task : tasks) {
+                total += task.students.size();
+            }
+            List<Student> students = new ArrayList<>(total);
+            for (ChunkTask task : tasks) {
+                students.addAll(task.students);
+            }
+            return students;
+        }
+    }
+    
+    /**
+     * Picks a chunk size that gives every thread a few chunks (for load balancing)
+     */
+    private long chunkSize(long dataBytes) {
+        long chunk = dataBytes / (pool.getParallelism() * 4L) + 1;
+        return Math.min(MAX_CHUNK_BYTES, Math.max(MIN_CHUNK_BYTES, chunk));
+    }
+    
+    /**
+     * @return position just after the first newline at or after 'from' (or the file size)
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+    
+    /**
+     * Parses the lines of one mapped chunk
+     * Bytes are copied out of the mapping in blocks and parsed from a plain array;
+     * a line cut by the end of a block is moved to the front of the next block.
+     */
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final MappedByteBuffer chunk;
+        private List<Student> students;
+        
+        ChunkTask(MappedByteBuffer chunk) {
+            this.chunk = chunk;
+        }
+        
+        @Override
+        protected void compute() {
+            StudentCsvParser parser = new StudentCsvParser();
+            students = new ArrayList<>(chunk.limit() / 64);  // rough guess of the row count
+            byte[] block = new byte[BLOCK_BYTES];
+            int carried = 0;  // bytes of an unfinished line at the start of the block
+            int position = 0;
+            int limit = chunk.limit();
+            
+            while (position < limit || carried > 0) {
+                if (carried == block.length) {
+                    block = Arrays.copyOf(block, block.length * 2);  // line longer than a block
+                }
+                int read = Math.min(block.length - carried, limit - position);
+                chunk.position(position);
+                chunk.get(block, carried, read);
+                position += read;
+                int filled = carried + read;
+                boolean lastBlock = position >= limit;
+                
+                int lineStart = 0;
+                for (int i = carried; i < filled; i++) {  // carried bytes have no newline
+                    if (block[i] == '\n') {
+                        addLine(parser, block, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lastBlock) {
+                    addLine(parser, block, lineStart, filled);  // file may not end with a newline
+                    carried = 0;
+                } else {
+                    carried = filled - lineStart;
+                    System.arraycopy(block, lineStart, block, 0, carried);
+                }
+            }
+        }
+        
+        private void addLine(StudentCsvParser parser, byte[] block, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if ((block[i] & 0xFF) > ' ') {
+                    students.add(parser.parse(block, start, end));
+                    return;
+                }
+            }
+            // blank line - skipped, like the line-by-line reader does
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * PhoneticNameIndex finds names that sound like the search text
+ * Every word of a name gets its Soundex code: the first letter plus three
+ * digits for the consonants that follow, so "Smith", "Smyth" and "Smithe" are
+ * all S530. The index keeps a posting list of IDs per code, computed when a
+ * name is added, so a search only codes its own words and looks them up.
+ */
+class PhoneticNameIndex {
+    // Soundex digit of each letter a-z; 0 for vowels, h, w and y
+    private static final String DIGITS = "01230120022455012623010202";
+    private static final Pattern NON_ASCII = Pattern.compile("[^\\x00-\\x7F]");
+    
+    private final IntObjectHashMap<IntPostingList> postings = new IntObjectHashMap<>();
+    
+    /**
+     * Adds a student's name to the index
+     * @param id - student ID
+     * @param name - student name
+     */
+    public void add(int id, String name) {
+        for (int code : codes(name)) {
+            IntPostingList list = postings.get(code);
+            if (list == null) {
+                list = new IntPostingList();
+                postings.put(code, list);
+            }
+            list.add(id);  // ignores words of one name with the same code
+        }
+    }
+    
+    /**
+     * Removes a student's name from the index
+     * @param id - student ID
+     * @param name - the name the student was added with
+     */
+    public void remove(int id, String name) {
+        for (int code : codes(name)) {
+            IntPostingList list = postings.get(code);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(code);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Finds the IDs of the students whose name has a word that sounds like each
+     * word of the text
+     * @param text - name as it sounds, e.g. "jon smyth"
+     * @return matching IDs in ascending order
+     */
+    public int[] search(String text) {
+        int[] codes = codes(text);
+        if (codes.length == 0) {
+            return new int[0];
+        }
+        IntPostingList[] lists = new IntPostingList[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            lists[i] = postings.get(codes[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        int[] ids = lists[0].toArray();
+        int count = ids.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = lists[i].retainIn(ids, count);
+        }
+        return Arrays.copyOf(ids, count);
+    }
+    
+    /**
+     * @return the distinct Soundex codes of the words of a name
+     */
+    static int[] codes(String name) {
+        int[] codes = new int[4];
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= name.length(); i++) {
+            if (i == name.length() || Character.isWhitespace(name.charAt(i)) || name.charAt(i) == '-') {
+                int code = i > start ? soundex(name, start, i) : -1;
+                if (code >= 0 && !contains(codes, count, code)) {
+                    if (count == codes.length) {
+                        codes = Arrays.copyOf(codes, count * 2);
+                    }
+                    codes[count++] = code;
+                }
+                start = i + 1;
+            }
+        }
+        return Arrays.copyOf(codes, count);
+    }
+    
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Computes the American Soundex code of a word, packed into an int
+     * Accents are dropped first ("Müller" codes like "Muller"); other characters
+     * than the letters a-z are skipped.
+     * @return first letter * 1000 + the three digits, or -1 if the word has no letter
+     */
+    static int soundex(String word) {
+        return soundex(word, 0, word.length());
+    }
+    
+    /**
+     * Computes the Soundex code of the part from..to of a text
+     */
+    private static int soundex(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) > 0x7F) {  // split accented letters into letter + accent
+                String plain = NON_ASCII.matcher(Normalizer.normalize(text.substring(from, to),
+                                                                      Normalizer.Form.NFD)).replaceAll("");
+                return soundex(plain, 0, plain.length());
+            }
+        }
+        int code = -1;
+        int digits = 0;
+        char last = '0';  // digit of the previous coded letter
+        for (int i = from; i < to && digits < 3; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            char digit = DIGITS.charAt(c - 'a');
+            if (code < 0) {
+                code = (c - 'a') * 1000;  // the first letter is kept as it is
+            } else if (digit != '0' && digit != last) {
+                code += (digit - '0') * (digits == 0 ? 100 : digits == 1 ? 10 : 1);
+                digits++;
+            }
+            if (c != 'h' && c != 'w') {
+                last = digit;  // h and w do not separate letters with the same digit
+            }
+        }
+        return code;
+    }
+}
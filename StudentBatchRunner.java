@@ -0,0 +1,178 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * StudentBatchRunner applies a stream of commands to a StudentManager without
+ * any prompts (java StudentManagementSystem --batch [file]). One command per line:
+ *   add 101,John Smith,20,10th,john@mail.com     - same format as students.csv
+ *   update 101,,21,,                             - empty fields keep their value
+ *   delete 101
+ *   search john
+ *   # comment (blank lines are skipped too)
+ *
+ * The input is read as raw bytes through a large buffer and add lines are parsed
+ * straight from those bytes. Changes are written to the disk together every
+ * FLUSH_EVERY commands (see StudentManager.beginBatch) instead of one by one.
+ */
+class StudentBatchRunner {
+    private static final int FLUSH_EVERY = 10_000;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    
+    private final StudentManager manager;
+    private final PrintStream out;
+    private final StudentCsvParser parser = new StudentCsvParser();
+    
+    private long lineNumber;
+    private long added;
+    private long updated;
+    private long deleted;
+    private long searches;
+    private long errors;
+    
+    /**
+     * Constructor
+     * @param manager - students to change
+     * @param out - where search results, errors and the summary are printed
+     */
+    public StudentBatchRunner(StudentManager manager, PrintStream out) {
+        this.manager = manager;
+        this.out = out;
+    }
+    
+    /**
+     * Runs every command in the stream and prints a summary with the throughput
+     * @param in - command stream (closed by the caller)
+     */
+    public void run(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        long commands = 0;
+        byte[] buffer = new byte[BUFFER_BYTES];
+        int carried = 0;  // bytes of an unfinished line at the start of the buffer
+        
+        manager.beginBatch();
+        try {
+            int read;
+            while ((read = in.read(buffer, carried, buffer.length - carried)) > 0) {
+                int filled = carried + read;
+                int lineStart = 0;
+                for (int i = carried; i < filled; i++) {
+                    if (buffer[i] == '\n') {
+                        if (runLine(buffer, lineStart, i) && ++commands % FLUSH_EVERY == 0) {
+                            manager.endBatch();
+                            manager.beginBatch();
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                carried = filled - lineStart;
+                if (lineStart == 0 && carried == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);  // line longer than the buffer
+                } else {
+                    System.arraycopy(buffer, lineStart, buffer, 0, carried);
+                }
+            }
+            if (carried > 0 && runLine(buffer, 0, carried)) {  // last line without a newline
+                commands++;
+            }
+        } finally {
+            manager.endBatch();
+        }
+        
+        double seconds = (System.nanoTime() - start) / 1e9;
+        out.printf("✅ Processed %d commands in %.2f s (%.0f commands/s)%n",
+                   commands, seconds, commands / Math.max(seconds, 1e-9));
+        out.println("   " + added + " added, " + updated + " updated, " + deleted + " deleted, "
+                    + searches + " searches, " + errors + " errors");
+    }
+    
+    /**
+     * Runs one line of the command stream
+     * @return true if the line was a command, false for blank lines and comments
+     */
+    private boolean runLine(byte[] bytes, int start, int end) {
+        lineNumber++;
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        while (start < end && (bytes[start] == ' ' || bytes[start] == '\t')) {
+            start++;
+        }
+        if (start == end || bytes[start] == '#') {
+            return false;
+        }
+        
+        int wordEnd = start;
+        while (wordEnd < end && bytes[wordEnd] != ' ' && bytes[wordEnd] != '\t') {
+            wordEnd++;
+        }
+        int arguments = wordEnd;
+        while (arguments < end && (bytes[arguments] == ' ' || bytes[arguments] == '\t')) {
+            arguments++;
+        }
+        
+        try {
+            switch (decode(bytes, start, wordEnd)) {
+                case "add":
+                    Student student = StudentValidator.student(parser.parse(bytes, arguments, end));
+                    if (!manager.insertStudent(student)) {
+                        throw new IllegalArgumentException("Student ID " + student.getId() + " already exists");
+                    }
+                    added++;
+                    break;
+                case "update":
+                    update(decode(bytes, arguments, end));
+                    updated++;
+                    break;
+                case "delete":
+                    int id = parseId(decode(bytes, arguments, end));
+                    if (!manager.removeStudent(id)) {
+                        throw new IllegalArgumentException("Student with ID " + id + " not found");
+                    }
+                    deleted++;
+                    break;
+                case "search":
+                    String name = decode(bytes, arguments, end).trim();
+                    List<Student> found = manager.findStudentsByName(name);
+                    out.println("🔍 " + found.size() + " students match \"" + name + "\"");
+                    for (Student match : found) {
+                        out.println("   " + match.toCSV());
+                    }
+                    searches++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command: " + decode(bytes, start, end));
+            }
+        } catch (IllegalArgumentException e) {  // includes NumberFormatException
+            errors++;
+            out.println("❌ Line " + lineNumber + ": " + e.getMessage());
+        }
+        return true;
+    }
+    
+    /**
+     * Applies "id,name,age,grade,email" where empty fields keep the current value
+     */
+    private void update(String arguments) {
+        String[] parts = arguments.split(",", -1);
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("update needs id,name,age,grade,email: " + arguments);
+        }
+        int id = parseId(parts[0]);
+        String name = parts[1].isBlank() ? null : StudentValidator.name(parts[1]);
+        int age = parts[2].isBlank() ? 0 : StudentValidator.age(Integer.parseInt(parts[2].trim()));
+        String grade = parts[3].isBlank() ? null : StudentValidator.grade(parts[3]);
+        String email = parts[4].isBlank() ? null : StudentValidator.email(parts[4]);
+        if (!manager.updateStudent(id, name, age, grade, email)) {
+            throw new IllegalArgumentException("Student with ID " + id + " not found");
+        }
+    }
+    
+    private static int parseId(String text) {
+        return Integer.parseInt(text.trim());
+    }
+    
+    private static String decode(byte[] bytes, int start, int end) {
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.concurrent.*;
+
+/**
+ * StudentCheckpointer runs in the background and keeps the journal short
+ * When the journal gets too big, has too many records or a checkpoint is overdue,
+ * it asks the StudentManager to write a fresh CSV snapshot and to drop the journal
+ * records that the snapshot already covers. This keeps startup time bounded.
+ */
+class StudentCheckpointer {
+    
+    // Default triggers - whichever is reached first starts a checkpoint
+    public static final long DEFAULT_MAX_LOG_BYTES = 8L * 1024 * 1024;   // 8 MB
+    public static final long DEFAULT_MAX_LOG_RECORDS = 100_000;
+    public static final long DEFAULT_MAX_INTERVAL_MILLIS = 10 * 60 * 1000;  // 10 minutes
+    
+    private static final long POLL_MILLIS = 1000;  // how often the triggers are checked
+    
+    private final StudentManager manager;
+    private final long maxLogBytes;
+    private final long maxLogRecords;
+    private final long maxIntervalMillis;
+    private ScheduledExecutorService scheduler;
+    private volatile long lastCheckpointMillis;
+    
+    /**
+     * Constructor with the default triggers
+     * @param manager - manager whose journal is checkpointed
+     */
+    public StudentCheckpointer(StudentManager manager) {
+        this(manager, DEFAULT_MAX_LOG_BYTES, DEFAULT_MAX_LOG_RECORDS, DEFAULT_MAX_INTERVAL_MILLIS);
+    }
+    
+    /**
+     * Constructor with custom triggers (use 0 to disable a trigger)
+     * @param manager - manager whose journal is checkpointed
+     * @param maxLogBytes - checkpoint when the journal grows beyond this many bytes
+     * @param maxLogRecords - checkpoint when the journal has this many records
+     * @param maxIntervalMillis - checkpoint a non-empty journal at least this often
+     */
+    public StudentCheckpointer(StudentManager manager, long maxLogBytes,
+                               long maxLogRecords, long maxIntervalMillis) {
+        this.manager = manager;
+        this.maxLogBytes = maxLogBytes;
+        this.maxLogRecords = maxLogRecords;
+        this.maxIntervalMillis = maxIntervalMillis;
+    }
+    
+    /**
+     * Starts checking the triggers on a background daemon thread
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        lastCheckpointMillis = System.currentTimeMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "student-checkpointer");
+            thread.setDaemon(true);  // never keeps the program alive on exit
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkTriggers, POLL_MILLIS, POLL_MILLIS,
+                                         TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Stops the background thread, waiting for a running checkpoint to finish
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+    
+    /**
+     * Checks the triggers and runs a checkpoint when one of them is reached
+     */
+    private void checkTriggers() {
+        long logBytes = manager.getJournalSizeBytes();
+        long logRecords = manager.getJournalRecordCount();
+        if (logRecords == 0) {
+            return;  // nothing to compact
+        }
+        
+        boolean due = (maxLogBytes > 0 && logBytes >= maxLogBytes)
+                   || (maxLogRecords > 0 && logRecords >= maxLogRecords)
+                   || (maxIntervalMillis > 0
+                       && System.currentTimeMillis() - lastCheckpointMillis >= maxIntervalMillis);
+        if (due) {
+            try {
+                manager.checkpoint();
+            } catch (RuntimeException e) {
+                // an uncaught exception would silently cancel all future checks
+                System.out.println("❌ Checkpoint failed: " + e);
+            }
+            lastCheckpointMillis = System.currentTimeMillis();
+        }
+    }
+}
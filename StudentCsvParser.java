@@ -0,0 +1,139 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * StudentCsvParser turns raw UTF-8 bytes of a students.csv line into a Student
+ * It works directly on the file bytes: id and age are parsed digit by digit and
+ * only the name, grade and email strings are created. Nothing else is allocated
+ * per line, so loading millions of rows does not produce millions of temporary
+ * Strings and arrays. Grades repeat on almost every line, so the parser remembers
+ * the bytes of the grades it has seen and reuses their GradeDictionary codes
+ * instead of creating a grade String per line.
+ *
+ * A parser keeps a small scratch array and grade cache, so use one parser per thread.
+ */
+class StudentCsvParser {
+    private static final int GRADE_CACHE_SIZE = 16;
+    
+    private byte[] scratch = new byte[256];  // copy buffer for direct (memory-mapped) buffers
+    private final byte[][] gradeBytes = new byte[GRADE_CACHE_SIZE][];
+    private final int[] gradeCodes = new int[GRADE_CACHE_SIZE];
+    private int cachedGrades;
+    
+    /**
+     * Parses one CSV line held in a byte array
+     * @param bytes - bytes of the file
+     * @param start - index of the first byte of the line
+     * @param end - index after the last byte of the line (without the newline)
+     * @return Student object created from the line
+     */
+    public Student parse(byte[] bytes, int start, int end) {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;  // Windows line ending
+        }
+        int nameStart = indexOfComma(bytes, start, end) + 1;
+        int ageStart = nameStart == 0 ? 0 : indexOfComma(bytes, nameStart, end) + 1;
+        int gradeStart = ageStart == 0 ? 0 : indexOfComma(bytes, ageStart, end) + 1;
+        int emailStart = gradeStart == 0 ? 0 : indexOfComma(bytes, gradeStart, end) + 1;
+        if (emailStart == 0) {
+            throw new IllegalArgumentException("Invalid student CSV line: "
+                                               + decode(bytes, start, end));
+        }
+        int emailEnd = indexOfComma(bytes, emailStart, end);  // extra columns are ignored
+        if (emailEnd < 0) {
+            emailEnd = end;
+        }
+        
+        return new Student(
+            parseInt(bytes, start, nameStart - 1),        // id
+            decode(bytes, nameStart, ageStart - 1),       // name
+            parseInt(bytes, ageStart, gradeStart - 1),    // age
+            gradeCode(bytes, gradeStart, emailStart - 1), // grade
+            decode(bytes, emailStart, emailEnd)           // email
+        );
+    }
+    
+    /**
+     * Parses one CSV line held in a buffer (for example a memory-mapped file)
+     * @param buffer - bytes of the file (positions are absolute, the buffer position is ignored)
+     * @param start - index of the first byte of the line
+     * @param end - index after the last byte of the line (without the newline)
+     * @return Student object created from the line
+     */
+    public Student parse(ByteBuffer buffer, int start, int end) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return parse(buffer.array(), offset + start, offset + end);
+        }
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        ByteBuffer view = buffer.duplicate();  // leaves the caller's position alone
+        view.position(start);
+        view.get(scratch, 0, length);  // one bulk copy, then parse the array
+        return parse(scratch, 0, length);
+    }
+    
+    /**
+     * Gets the GradeDictionary code of a grade, creating its String only the first time
+     */
+    private int gradeCode(byte[] bytes, int start, int end) {
+        for (int i = 0; i < cachedGrades; i++) {
+            if (Arrays.equals(gradeBytes[i], 0, gradeBytes[i].length, bytes, start, end)) {
+                return gradeCodes[i];
+            }
+        }
+        int code = GradeDictionary.code(decode(bytes, start, end));
+        if (cachedGrades < GRADE_CACHE_SIZE) {
+            gradeBytes[cachedGrades] = Arrays.copyOfRange(bytes, start, end);
+            gradeCodes[cachedGrades++] = code;
+        }
+        return code;
+    }
+    
+    private static int indexOfComma(byte[] bytes, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (bytes[i] == ',') {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Parses a decimal int (with optional sign) without creating a String
+     */
+    private static int parseInt(byte[] bytes, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            throw numberFormatError(bytes, start, end);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw numberFormatError(bytes, start, end);
+            }
+            value = value * 10 + digit;
+            if (value > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) {
+                throw numberFormatError(bytes, start, end);
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+    
+    private static NumberFormatException numberFormatError(byte[] bytes, int start, int end) {
+        return new NumberFormatException("For input string: \"" + decode(bytes, start, end) + "\"");
+    }
+    
+    private static String decode(byte[] bytes, int start, int end) {
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+}
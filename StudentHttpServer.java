@@ -0,0 +1,297 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * StudentHttpServer exposes a StudentManager as a small JSON API
+ *   GET    /students              - all students
+ *   GET    /students?name=text    - search by name (partial match, case-insensitive)
+ *   GET    /students?email=addr   - the student with this email (a list of 0 or 1)
+ *   GET    /students?fuzzy=text   - names spelled almost like the text, closest first
+ *                                   (optional &distance=n edits per word, 0 to 3, default 2)
+ *   GET    /students?sounds=text  - names that sound like the text (Soundex)
+ *   GET    /students/complete?prefix=ma - most common name words starting with
+ *                                   the prefix, for type-ahead (optional &limit=n, 1 to 50, default 10)
+ *   GET    /students/{id}         - one student
+ *   POST   /students              - add a student (JSON body with id, name, age, grade, email;
+ *                                   without an id the next one of the ID sequence is used)
+ *   PUT    /students/{id}         - update the fields given in the JSON body
+ *   DELETE /students/{id}         - delete a student
+ *
+ * Connections are handled by the JDK server's selector thread, and every request
+ * runs on its own virtual thread when the JVM has them (Java 21+). On older JVMs
+ * a fixed pool of platform threads is used instead.
+ */
+class StudentHttpServer {
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int MAX_FUZZY_RESULTS = 50;
+    
+    private final StudentManager manager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    
+    /**
+     * Constructor - binds the port but does not accept requests until start()
+     * @param manager - students to serve
+     * @param port - TCP port to listen on
+     */
+    public StudentHttpServer(StudentManager manager, int port) throws IOException {
+        this.manager = manager;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/students", this::handle);
+    }
+    
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+    
+    /**
+     * Stops accepting requests and waits up to the given time for running ones
+     * @param delaySeconds - how long to wait for requests that are in progress
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+    
+    /**
+     * @return port the server listens on (useful when created with port 0)
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    /**
+     * Creates a virtual-thread-per-request executor, or a thread pool before Java 21
+     * Looked up by reflection so the code still compiles and runs on Java 11.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            int threads = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+    
+    /**
+     * Routes one request to the matching operation
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String rest = path.substring("/students".length());
+            
+            if (rest.isEmpty() || rest.equals("/")) {
+                if (method.equals("GET")) {
+                    listOrSearch(exchange);
+                } else if (method.equals("POST")) {
+                    add(exchange);
+                } else {
+                    send(exchange, 405, StudentJson.error("Method not allowed"));
+                }
+                return;
+            }
+            if (rest.equals("/complete") && method.equals("GET")) {
+                String prefix = queryParameter(exchange, "prefix");
+                int limit = numberParameter(exchange, "limit", 10, 1, NameAutocomplete.MAX_COMPLETIONS);
+                send(exchange, 200, StudentJson.completionsToJson(manager.completeName(
+                    prefix == null ? "" : prefix, limit)));
+                return;
+            }
+            
+            int id;
+            try {
+                id = Integer.parseInt(rest.substring(1));
+            } catch (NumberFormatException e) {
+                send(exchange, 404, StudentJson.error("Not found"));
+                return;
+            }
+            switch (method) {
+                case "GET":
+                    Student student = manager.findStudentById(id);
+                    if (student == null) {
+                        send(exchange, 404, StudentJson.error("Student with ID " + id + " not found"));
+                    } else {
+                        send(exchange, 200, StudentJson.toJson(student));
+                    }
+                    break;
+                case "PUT":
+                    update(exchange, id);
+                    break;
+                case "DELETE":
+                    if (manager.removeStudent(id)) {
+                        send(exchange, 204, null);
+                    } else {
+                        send(exchange, 404, StudentJson.error("Student with ID " + id + " not found"));
+                    }
+                    break;
+                default:
+                    send(exchange, 405, StudentJson.error("Method not allowed"));
+            }
+        } catch (DuplicateEmailException e) {
+            send(exchange, 409, StudentJson.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, StudentJson.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            // the details stay in the server log; clients only learn that it failed
+            System.out.println("❌ Error handling " + exchange.getRequestMethod() + " "
+                               + exchange.getRequestURI().getPath() + ":");
+            e.printStackTrace(System.out);
+            send(exchange, 500, StudentJson.error("Internal error"));
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private void listOrSearch(HttpExchange exchange) throws IOException {
+        String name = queryParameter(exchange, "name");
+        String email = queryParameter(exchange, "email");
+        String fuzzy = queryParameter(exchange, "fuzzy");
+        String sounds = queryParameter(exchange, "sounds");
+        List<Student> students;
+        if (sounds != null) {
+            students = manager.findStudentsBySound(sounds);
+        } else if (fuzzy != null) {
+            int distance = numberParameter(exchange, "distance", 2, 0, FuzzyNameIndex.MAX_DISTANCE);
+            students = manager.findStudentsByNameFuzzy(fuzzy, distance, MAX_FUZZY_RESULTS);
+        } else if (email != null) {
+            Student student = manager.findStudentByEmail(email);
+            students = student == null ? List.of() : List.of(student);
+        } else if (name != null) {
+            students = manager.findStudentsByName(name);
+        } else {
+            students = manager.getAllStudents();
+        }
+        send(exchange, 200, StudentJson.toJson(students));
+    }
+    
+    private void add(HttpExchange exchange) throws IOException {
+        Map<String, String> fields = readBody(exchange);
+        for (String required : new String[] {"name", "age", "grade", "email"}) {
+            if (fields.get(required) == null) {
+                throw new IllegalArgumentException("Missing field: " + required);
+            }
+        }
+        String name = StudentValidator.name(fields.get("name"));
+        int age = StudentValidator.age(parseNumber(fields, "age"));
+        String grade = StudentValidator.grade(fields.get("grade"));
+        String email = StudentValidator.email(fields.get("email"));
+        if (fields.get("id") == null) {
+            send(exchange, 201, StudentJson.toJson(manager.insertNewStudent(name, age, grade, email)));
+            return;
+        }
+        Student student = new Student(parseNumber(fields, "id"), name, age, grade, email);
+        if (manager.insertStudent(student)) {
+            send(exchange, 201, StudentJson.toJson(student));
+        } else {
+            send(exchange, 409, StudentJson.error("Student ID " + student.getId() + " already exists"));
+        }
+    }
+    
+    private void update(HttpExchange exchange, int id) throws IOException {
+        Map<String, String> fields = readBody(exchange);
+        if (fields.containsKey("id") && parseNumber(fields, "id") != id) {
+            throw new IllegalArgumentException("The ID of a student cannot be changed");
+        }
+        String name = fields.get("name");
+        String grade = fields.get("grade");
+        String email = fields.get("email");
+        boolean updated = manager.updateStudent(id,
+            name == null ? null : StudentValidator.name(name),
+            fields.get("age") == null ? 0 : StudentValidator.age(parseNumber(fields, "age")),
+            grade == null ? null : StudentValidator.grade(grade),
+            email == null ? null : StudentValidator.email(email));
+        Student student = manager.findStudentById(id);
+        if (updated && student != null) {
+            send(exchange, 200, StudentJson.toJson(student));
+        } else {
+            send(exchange, 404, StudentJson.error("Student with ID " + id + " not found"));
+        }
+    }
+    
+    private static int parseNumber(Map<String, String> fields, String name) {
+        try {
+            return Integer.parseInt(fields.get(name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Field " + name + " must be a whole number");
+        }
+    }
+    
+    /**
+     * Reads a whole-number query parameter
+     * @param name - parameter name
+     * @param defaultValue - value when the parameter is missing
+     * @param min - smallest value allowed
+     * @param max - largest value allowed
+     * @throws IllegalArgumentException if the value is not a number between min and max
+     */
+    private static int numberParameter(HttpExchange exchange, String name, int defaultValue,
+                                       int min, int max) {
+        String text = queryParameter(exchange, name);
+        if (text == null) {
+            return defaultValue;
+        }
+        int value;
+        try {
+            value = Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a whole number");
+        }
+        if (value < min || value > max) {
+            throw new IllegalArgumentException("Parameter " + name + " must be between " + min + " and " + max);
+        }
+        return value;
+    }
+    
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("Request body is too large");
+        }
+        return StudentJson.parseObject(new String(body, StandardCharsets.UTF_8));
+    }
+    
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            if (URLDecoder.decode(key, StandardCharsets.UTF_8).equals(name)) {
+                return equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Sends a JSON response (or an empty one for 204)
+     */
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
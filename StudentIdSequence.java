@@ -0,0 +1,176 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StudentIdSequence hands out new student IDs (1, 2, 3, ...) without asking
+ * whether they are taken
+ * IDs are taken from a block reserved on the disk: the sequence file holds the
+ * first ID after the block (students.seq: "5001"), and a new block is written
+ * only when the current one is used up. After a crash the sequence continues
+ * after the saved block, so an ID is never handed out twice and at most one
+ * block of IDs is skipped.
+ *
+ * Handing out an ID is a single compare-and-set on an AtomicLong, so threads
+ * do not wait for each other; only the thread that finds the block used up
+ * writes the next one. IDs given by hand are reported with observe() and the
+ * sequence moves past them. IDs in the upper half of the range (from 2^30) are
+ * only remembered and skipped when the sequence gets there, so one typed ID
+ * like 2147483000 does not use up all the IDs left.
+ */
+class StudentIdSequence {
+    private static final long LAST_ID = Integer.MAX_VALUE;
+    private static final int HAND_ID_START = 1 << 30;  // observed IDs from here on do not move the sequence
+    
+    private final Path path;  // null: nothing is saved (StorageMode.MEMORY)
+    private final int blockSize;
+    private final AtomicLong next = new AtomicLong(1);  // next ID to hand out
+    private volatile long reservedUpTo = 1;              // first ID after the saved block
+    private final TreeSet<Integer> handIds = new TreeSet<>();  // observed IDs >= HAND_ID_START still ahead
+    
+    /**
+     * Constructor - does not touch the disk until load() or an ID is needed
+     * @param fileName - sequence file name, or null to keep the sequence in memory only
+     * @param blockSize - IDs reserved with each write
+     */
+    public StudentIdSequence(String fileName, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1");
+        }
+        this.path = fileName == null ? null : Paths.get(fileName);
+        this.blockSize = blockSize;
+    }
+    
+    /**
+     * Continues after the block saved by the last run (if there is a sequence file)
+     */
+    public void load() throws IOException {
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+        String saved = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+        try {
+            long upTo = Long.parseLong(saved);
+            next.accumulateAndGet(Math.min(upTo, LAST_ID + 1), Math::max);
+        } catch (NumberFormatException e) {
+            throw new IOException("damaged sequence file " + path + ": \"" + saved + "\"");
+        }
+    }
+    
+    /**
+     * Hands out a new ID
+     * @return an ID that has not been handed out or observed before
+     * @throws IllegalStateException if all IDs up to Integer.MAX_VALUE are used
+     * @throws UncheckedIOException if the next block cannot be saved
+     */
+    public int next() {
+        return reserve(1);
+    }
+    
+    /**
+     * Hands out a range of new IDs at once, e.g. for a bulk insert
+     * @param count - number of IDs
+     * @return the first ID of the range; the range is first to first + count - 1
+     * @throws IllegalStateException if not enough IDs are left
+     * @throws UncheckedIOException if the next block cannot be saved
+     */
+    public int reserve(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be at least 1");
+        }
+        while (true) {
+            long first = next.get();
+            long end = first + count;
+            if (end - 1 > LAST_ID) {
+                throw new IllegalStateException("No student IDs left");
+            }
+            if (end > HAND_ID_START) {
+                long taken = firstHandIdIn(first, end);
+                if (taken >= 0) {
+                    next.compareAndSet(first, taken + 1);  // start again after the taken ID
+                    continue;
+                }
+            }
+            if (end > reservedUpTo) {
+                reserveBlock(end);
+            } else if (next.compareAndSet(first, end)) {
+                return (int) first;
+            }
+        }
+    }
+    
+    /**
+     * Moves the sequence past an ID that was given by hand or loaded from the disk
+     * An ID from 2^30 on is remembered instead, and skipped when the sequence
+     * reaches it.
+     * @param id - an ID in use
+     */
+    public void observe(int id) {
+        if (id < next.get()) {
+            return;
+        }
+        if (id >= HAND_ID_START) {
+            synchronized (handIds) {
+                handIds.add(id);
+            }
+        } else {
+            next.accumulateAndGet(id + 1L, Math::max);
+        }
+    }
+    
+    /**
+     * @return the ID the next call to next() will hand out (if no other thread is faster)
+     */
+    public int peek() {
+        return (int) Math.min(next.get(), LAST_ID);
+    }
+    
+    /**
+     * Finds the first remembered ID in a range and forgets the ones before it
+     * @return the ID, or -1 if the range first to end (exclusive) is free
+     */
+    private long firstHandIdIn(long first, long end) {
+        synchronized (handIds) {
+            handIds.headSet((int) first).clear();  // the sequence is past them
+            Integer id = handIds.ceiling((int) first);
+            return id != null && id < end ? id : -1;
+        }
+    }
+    
+    /**
+     * Saves a block that reaches at least up to end (exclusive)
+     * Runs one at a time; threads that find the block already saved return at once.
+     */
+    private synchronized void reserveBlock(long end) {
+        if (end <= reservedUpTo) {
+            return;
+        }
+        long upTo = Math.min(Math.max(end, next.get()) + blockSize, LAST_ID + 1);
+        if (path != null) {
+            try {
+                save(upTo);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot save the student ID sequence", e);
+            }
+        }
+        reservedUpTo = upTo;  // only after the block is on the disk
+    }
+    
+    /**
+     * Writes the sequence file to a temporary file and renames it over the old one
+     */
+    private void save(long upTo) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap((upTo + "\n").getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
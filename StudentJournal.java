@@ -0,0 +1,315 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+/**
+ * StudentJournal is an append-only log (write-ahead log) of student changes
+ * Instead of rewriting the whole CSV file after every change, each add/update/delete
+ * appends one small record to the end of this file. On startup the journal is
+ * replayed on top of the CSV snapshot to rebuild the latest state.
+ *
+ * Record format (one record per line):  OP|CRC32|PAYLOAD
+ *   A|1a2b3c4d|101,John,20,10th,john@mail.com   -> student added
+ *   U|5e6f7a8b|101,John,21,10th,john@mail.com   -> student updated (full record)
+ *   D|9c0d1e2f|101                              -> student deleted
+ */
+class StudentJournal {
+    
+    /**
+     * When the journal forces written records to the disk (fsync)
+     */
+    enum SyncPolicy {
+        ALWAYS,    // fsync after every record - safest, nothing is lost on a crash
+        PERIODIC,  // fsync every N records - a crash can lose the last few changes
+        NEVER      // leave flushing to the operating system - fastest
+    }
+    
+    /**
+     * What replay() found in one record
+     */
+    private enum RecordStatus {
+        APPLIED,     // passed to the handler
+        DAMAGED,     // torn or corrupted: the checksum does not match
+        UNREADABLE   // the checksum matches, so it was written like this, but it cannot be parsed
+    }
+    
+    /**
+     * Receives the records read back from the journal during replay
+     */
+    interface ReplayHandler {
+        void onUpsert(Student student);
+        void onDelete(int id);
+    }
+    
+    public static final char OP_ADD = 'A';
+    public static final char OP_UPDATE = 'U';
+    public static final char OP_DELETE = 'D';
+    
+    private static final int BATCH_WRITE_BYTES = 1 << 20;  // batched records are written in 1 MB pieces
+    
+    private final Path path;
+    private final SyncPolicy syncPolicy;
+    private final int syncInterval;       // used only by SyncPolicy.PERIODIC
+    private FileChannel channel;
+    private volatile long sizeBytes;      // bytes of valid records in the journal
+    private volatile long recordCount;    // records currently in the journal
+    private int unsyncedRecords;          // records written since the last fsync
+    private ByteArrayOutputStream batch;  // records held back between beginBatch() and endBatch()
+    private int batchRecords;
+    
+    /**
+     * Constructor - does not touch the disk until replay() or append() is called
+     * @param fileName - journal file name
+     * @param syncPolicy - when to fsync written records
+     * @param syncInterval - records between fsyncs for SyncPolicy.PERIODIC
+     */
+    public StudentJournal(String fileName, SyncPolicy syncPolicy, int syncInterval) {
+        this.path = Paths.get(fileName);
+        this.syncPolicy = syncPolicy;
+        this.syncInterval = Math.max(1, syncInterval);
+    }
+    
+    /**
+     * Replays every valid record of the journal through the handler
+     * A torn or corrupted record at the end (e.g. from a crash in the middle of a write)
+     * ends the replay and is cut off, so new records are never appended after garbage.
+     * A record with a correct checksum was written completely, so if it cannot be
+     * parsed only that record is skipped (with a warning) and the replay goes on.
+     * @param handler - receives the replayed changes
+     * @return number of records replayed
+     */
+    public long replay(ReplayHandler handler) throws IOException {
+        long validBytes = 0;
+        long replayed = 0;
+        long skipped = 0;
+        
+        if (Files.exists(path)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+                long offset = 0;
+                int b;
+                while ((b = in.read()) != -1) {
+                    offset++;
+                    if (b != '\n') {
+                        line.write(b);
+                        continue;
+                    }
+                    String record = line.toString(StandardCharsets.UTF_8);
+                    RecordStatus status = applyRecord(record, handler);
+                    if (status == RecordStatus.DAMAGED) {
+                        break;  // corrupted record - everything after it is untrusted
+                    }
+                    if (status == RecordStatus.UNREADABLE) {
+                        System.out.println("⚠️  Skipping journal record that cannot be read: " + record);
+                        skipped++;
+                    } else {
+                        replayed++;
+                    }
+                    validBytes = offset;
+                    line.reset();
+                }
+            }
+        }
+        
+        openChannel();
+        if (channel.size() > validBytes) {
+            System.out.println("⚠️  Journal has a damaged tail, discarding "
+                               + (channel.size() - validBytes) + " bytes.");
+            channel.truncate(validBytes);
+            channel.force(true);
+        }
+        sizeBytes = validBytes;
+        recordCount = replayed + skipped;
+        return replayed;
+    }
+    
+    /**
+     * Appends one record to the end of the journal
+     * @param op - OP_ADD, OP_UPDATE or OP_DELETE
+     * @param payload - student CSV line, or the id for deletes
+     */
+    public void append(char op, String payload) throws IOException {
+        String record = op + "|" + checksum(op, payload) + "|" + payload + "\n";
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        if (batch != null) {
+            batch.write(bytes, 0, bytes.length);
+            batchRecords++;
+            if (batch.size() >= BATCH_WRITE_BYTES) {
+                writeBatch();  // keep memory bounded, but still sync only at the end
+            }
+            return;
+        }
+        write(bytes, 1);
+        syncIfDue();
+    }
+    
+    /**
+     * Starts collecting records in memory instead of writing each one
+     * The collected records are written with one write and at most one fsync by endBatch()
+     */
+    public void beginBatch() {
+        if (batch == null) {
+            batch = new ByteArrayOutputStream(1 << 16);
+            batchRecords = 0;
+        }
+    }
+    
+    /**
+     * Writes the records collected since beginBatch() and syncs them (as the sync policy says)
+     */
+    public void endBatch() throws IOException {
+        if (batch == null) {
+            return;
+        }
+        writeBatch();
+        batch = null;
+        syncIfDue();
+    }
+    
+    private void writeBatch() throws IOException {
+        if (batchRecords > 0) {
+            write(batch.toByteArray(), batchRecords);
+            batch.reset();
+            batchRecords = 0;
+        }
+    }
+    
+    private void write(byte[] bytes, int records) throws IOException {
+        openChannel();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        sizeBytes += bytes.length;
+        recordCount += records;
+        unsyncedRecords += records;
+    }
+    
+    private void syncIfDue() throws IOException {
+        if (syncPolicy == SyncPolicy.ALWAYS
+                || (syncPolicy == SyncPolicy.PERIODIC && unsyncedRecords >= syncInterval)) {
+            sync();
+        }
+    }
+    
+    /**
+     * Forces every written record to the disk, whatever the sync policy is
+     */
+    public void sync() throws IOException {
+        if (channel != null && unsyncedRecords > 0) {
+            channel.force(false);
+            unsyncedRecords = 0;
+        }
+    }
+    
+    /**
+     * Drops the records before the given offset (they are covered by a newer snapshot)
+     * The records after the offset are copied to a new file which then atomically
+     * replaces the journal, so a crash leaves either the old or the new journal.
+     * @param offset - journal size when the snapshot was taken
+     * @param records - journal record count when the snapshot was taken
+     */
+    public void compact(long offset, long records) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        sync();
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                                                   StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = offset;
+            while (position < sizeBytes) {
+                position += source.transferTo(position, sizeBytes - position, target);
+            }
+            target.force(true);
+        }
+        closeChannel();  // not close() - records of a running batch stay in memory
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE);
+        openChannel();
+        sizeBytes -= offset;
+        recordCount -= records;
+    }
+    
+    /**
+     * Writes any batched records, syncs and closes the journal file
+     */
+    public void close() throws IOException {
+        endBatch();
+        closeChannel();
+    }
+    
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            sync();
+            channel.close();
+            channel = null;
+        }
+    }
+    
+    /**
+     * @return size of the journal in bytes
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+    
+    /**
+     * @return number of records in the journal
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+    
+    private void openChannel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                                       StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+    
+    /**
+     * Parses one journal line and hands it to the handler
+     * @return APPLIED, DAMAGED if the record is malformed or its checksum does not
+     *         match, UNREADABLE if the checksum matches but the payload cannot be parsed
+     */
+    private static RecordStatus applyRecord(String line, ReplayHandler handler) {
+        if (line.length() < 3 || line.charAt(1) != '|') {
+            return RecordStatus.DAMAGED;
+        }
+        int secondBar = line.indexOf('|', 2);
+        if (secondBar < 0) {
+            return RecordStatus.DAMAGED;
+        }
+        char op = line.charAt(0);
+        String crc = line.substring(2, secondBar);
+        String payload = line.substring(secondBar + 1);
+        if (!crc.equals(checksum(op, payload))) {
+            return RecordStatus.DAMAGED;
+        }
+        
+        try {
+            switch (op) {
+                case OP_ADD:
+                case OP_UPDATE:
+                    handler.onUpsert(Student.fromCSV(payload));
+                    return RecordStatus.APPLIED;
+                case OP_DELETE:
+                    handler.onDelete(Integer.parseInt(payload));
+                    return RecordStatus.APPLIED;
+                default:
+                    return RecordStatus.UNREADABLE;
+            }
+        } catch (RuntimeException e) {
+            return RecordStatus.UNREADABLE;  // checksum matched but the payload cannot be parsed
+        }
+    }
+    
+    private static String checksum(char op, String payload) {
+        CRC32 crc = new CRC32();
+        crc.update(op);
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+}
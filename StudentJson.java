@@ -0,0 +1,256 @@
+import java.util.*;
+
+/**
+ * StudentJson converts students to JSON and reads simple JSON request bodies
+ * Only what the HTTP API needs is supported: a flat object whose values are
+ * strings, numbers, true/false or null. Nested objects and arrays are rejected.
+ */
+class StudentJson {
+    
+    /**
+     * Converts a student to a JSON object
+     */
+    public static String toJson(Student student) {
+        StringBuilder json = new StringBuilder(128);
+        appendStudent(json, student);
+        return json.toString();
+    }
+    
+    /**
+     * Converts a list of students to a JSON array
+     */
+    public static String toJson(List<Student> students) {
+        StringBuilder json = new StringBuilder(students.size() * 96 + 2);
+        json.append('[');
+        for (int i = 0; i < students.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendStudent(json, students.get(i));
+        }
+        return json.append(']').toString();
+    }
+    
+    /**
+     * Converts name completions to a JSON array of {"word": ..., "students": ...}
+     */
+    public static String completionsToJson(List<NameAutocomplete.Completion> completions) {
+        StringBuilder json = new StringBuilder(completions.size() * 32 + 2);
+        json.append('[');
+        for (int i = 0; i < completions.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"word\":");
+            appendString(json, completions.get(i).getWord());
+            json.append(",\"students\":").append(completions.get(i).getStudents()).append('}');
+        }
+        return json.append(']').toString();
+    }
+    
+    /**
+     * Builds an {"error": "..."} object
+     */
+    public static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message);
+        return json.append('}').toString();
+    }
+    
+    /**
+     * Reads a flat JSON object
+     * @param text - JSON text
+     * @return field name -> value (strings unescaped, numbers and booleans as written,
+     *         null for JSON null)
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    public static Map<String, String> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, String> fields = parser.readObject();
+        parser.skipWhitespace();
+        if (parser.position != text.length()) {
+            throw parser.error("unexpected text after the object");
+        }
+        return fields;
+    }
+    
+    private static void appendStudent(StringBuilder json, Student student) {
+        json.append("{\"id\":").append(student.getId());
+        json.append(",\"name\":");
+        appendString(json, student.getName());
+        json.append(",\"age\":").append(student.getAge());
+        json.append(",\"grade\":");
+        appendString(json, student.getGrade());
+        json.append(",\"email\":");
+        appendString(json, student.getEmail());
+        json.append('}');
+    }
+    
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+    
+    /**
+     * Small recursive-descent reader for one flat JSON object
+     */
+    private static class Parser {
+        private final String text;
+        private int position;
+        
+        Parser(String text) {
+            this.text = text;
+        }
+        
+        Map<String, String> readObject() {
+            Map<String, String> fields = new LinkedHashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return fields;
+            }
+            while (true) {
+                skipWhitespace();
+                String name = readString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                fields.put(name, readValue());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    return fields;
+                }
+                if (c != ',') {
+                    throw error("expected ',' or '}'");
+                }
+            }
+        }
+        
+        private String readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                throw error("nested values are not supported");
+            }
+            int start = position;
+            while (position < text.length() && "-+.eE0123456789truefalsn".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty()) {
+                throw error("expected a value");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+        
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        value.append(escaped);
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("incomplete \\u escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("invalid \\u escape");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        throw error("invalid escape \\" + escaped);
+                }
+            }
+        }
+        
+        void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+        
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw error("expected '" + expected + "'");
+            }
+        }
+        
+        private char peek() {
+            if (position >= text.length()) {
+                throw error("unexpected end of JSON");
+            }
+            return text.charAt(position);
+        }
+        
+        private char next() {
+            char c = peek();
+            position++;
+            return c;
+        }
+        
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON at position " + position + ": " + message);
+        }
+    }
+}
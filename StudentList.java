@@ -0,0 +1,163 @@
+import java.util.*;
+
+/**
+ * StudentList keeps the students in the order they were added, like an
+ * ArrayList, but removes one in constant time
+ * A removed student leaves an empty slot (a tombstone) instead of shifting every
+ * later student down, and an ID -> slot map finds the slot without a scan.
+ * Iteration skips the tombstones. When they take up more than half of the
+ * slots, vacuum() squeezes them out in a single pass; StudentManager also
+ * vacuums on every checkpoint.
+ *
+ * The list does not check IDs (StudentManager does). If several students share
+ * an ID, the map points at the first of them; the others are still listed, and
+ * removing one of them falls back to a scan.
+ */
+class StudentList implements Iterable<Student> {
+    private static final int MIN_VACUUM = 1024;  // tombstones are not worth a pass below this
+    
+    private Student[] slots = new Student[16];
+    private int end;         // slots in use, tombstones included
+    private int tombstones;
+    private final IntLongHashMap slotOf = new IntLongHashMap();  // ID -> slot
+    
+    /**
+     * Adds a student after all others
+     * @param student - student to add
+     */
+    public void add(Student student) {
+        if (end == slots.length) {
+            ensureCapacity(end + 1);
+        }
+        if (!slotOf.containsKey(student.getId())) {
+            slotOf.put(student.getId(), end);
+        }
+        slots[end++] = student;
+    }
+    
+    /**
+     * Removes a student (the same object, not just the same ID)
+     * @param student - student to remove
+     * @return true if the student was in the list
+     */
+    public boolean remove(Student student) {
+        int slot = (int) slotOf.get(student.getId(), -1);
+        if (slot < 0 || slots[slot] != student) {
+            slot = scanFor(student);
+            if (slot < 0) {
+                return false;
+            }
+        } else {
+            slotOf.remove(student.getId());
+        }
+        slots[slot] = null;
+        tombstones++;
+        if (tombstones >= MIN_VACUUM && tombstones > end / 2) {
+            vacuum();
+        }
+        return true;
+    }
+    
+    /**
+     * Squeezes out the tombstones, keeping the order of the students
+     */
+    public void vacuum() {
+        if (tombstones == 0) {
+            return;
+        }
+        int kept = 0;
+        for (int slot = 0; slot < end; slot++) {
+            Student student = slots[slot];
+            if (student != null) {
+                if (slotOf.get(student.getId(), -1) == slot) {
+                    slotOf.put(student.getId(), kept);
+                }
+                slots[kept++] = student;
+            }
+        }
+        Arrays.fill(slots, kept, end, null);
+        end = kept;
+        tombstones = 0;
+    }
+    
+    /**
+     * Makes room for a number of students without growing again
+     * @param capacity - number of slots needed
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(capacity, slots.length + (slots.length >> 1)));
+        }
+    }
+    
+    /**
+     * @return number of students (tombstones do not count)
+     */
+    public int size() {
+        return end - tombstones;
+    }
+    
+    /**
+     * @return true if there are no students
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    /**
+     * @return number of empty slots left by removed students
+     */
+    public int tombstoneCount() {
+        return tombstones;
+    }
+    
+    /**
+     * Copies the students into a new list
+     * @return all students, in the order they were added
+     */
+    public ArrayList<Student> toList() {
+        ArrayList<Student> copy = new ArrayList<>(size());
+        for (Student student : this) {
+            copy.add(student);
+        }
+        return copy;
+    }
+    
+    @Override
+    public Iterator<Student> iterator() {
+        return new Iterator<Student>() {
+            private int slot = skipTombstones(0);
+            
+            @Override
+            public boolean hasNext() {
+                return slot < end;
+            }
+            
+            @Override
+            public Student next() {
+                if (slot >= end) {
+                    throw new NoSuchElementException();
+                }
+                Student student = slots[slot];
+                slot = skipTombstones(slot + 1);
+                return student;
+            }
+        };
+    }
+    
+    private int skipTombstones(int slot) {
+        while (slot < end && slots[slot] == null) {
+            slot++;
+        }
+        return slot;
+    }
+    
+    private int scanFor(Student student) {
+        for (int slot = 0; slot < end; slot++) {
+            if (slots[slot] == student) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,5 +1,9 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
 /**
  * Student class represents a single student with all their details
@@ -10,7 +14,7 @@ class Student {
     private int id;
     private String name;
     private int age;
-    private String grade;
+    private int gradeCode;  // see GradeDictionary - one shared String per distinct grade
     private String email;
     
     /**
@@ -22,10 +26,18 @@ class Student {
      * @param email - student's email address
      */
     public Student(int id, String name, int age, String grade, String email) {
+        this(id, name, age, GradeDictionary.code(grade), email);
+    }
+    
+    /**
+     * Constructor for callers that already have the grade's dictionary code
+     * @param gradeCode - code from GradeDictionary
+     */
+    Student(int id, String name, int age, int gradeCode, String email) {
         this.id = id;
         this.name = name;
         this.age = age;
-        this.grade = grade;
+        this.gradeCode = gradeCode;
         this.email = email;
     }
     
@@ -43,7 +55,11 @@ class Student {
     }
     
     public String getGrade() {
-        return grade;
+        return GradeDictionary.grade(gradeCode);  // the shared instance
+    }
+    
+    public int getGradeCode() {
+        return gradeCode;
     }
     
     public String getEmail() {
@@ -60,7 +76,7 @@ class Student {
     }
     
     public void setGrade(String grade) {
-        this.grade = grade;
+        this.gradeCode = GradeDictionary.code(grade);
     }
     
     public void setEmail(String email) {
@@ -74,7 +90,7 @@ class Student {
     @Override
     public String toString() {
         return String.format("ID: %d | Name: %s | Age: %d | Grade: %s | Email: %s", 
-                           id, name, age, grade, email);
+                           id, name, age, getGrade(), email);
     }
     
     /**
@@ -82,22 +98,35 @@ class Student {
      * @return CSV string representation of student
      */
     public String toCSV() {
-        return id + "," + name + "," + age + "," + grade + "," + email;
+        return id + "," + name + "," + age + "," + getGrade() + "," + email;
     }
     
     /**
      * Creates a Student object from CSV string (static method)
+     * The line is scanned once: id and age are parsed in place and only the
+     * name, grade and email strings are created (no split() array or extra substrings)
      * @param csvLine - CSV format string
      * @return Student object created from the CSV data
      */
     public static Student fromCSV(String csvLine) {
-        String[] parts = csvLine.split(",");
+        int nameStart = csvLine.indexOf(',') + 1;
+        int ageStart = csvLine.indexOf(',', nameStart) + 1;
+        int gradeStart = ageStart == 0 ? 0 : csvLine.indexOf(',', ageStart) + 1;
+        int emailStart = gradeStart == 0 ? 0 : csvLine.indexOf(',', gradeStart) + 1;
+        if (nameStart == 0 || ageStart == 0 || gradeStart == 0 || emailStart == 0) {
+            throw new IllegalArgumentException("Invalid student CSV line: " + csvLine);
+        }
+        int emailEnd = csvLine.indexOf(',', emailStart);  // extra columns are ignored
+        if (emailEnd < 0) {
+            emailEnd = csvLine.length();
+        }
+        
         return new Student(
-            Integer.parseInt(parts[0]),  // id
-            parts[1],                    // name
-            Integer.parseInt(parts[2]),  // age
-            parts[3],                    // grade
-            parts[4]                     // email
+            Integer.parseInt(csvLine, 0, nameStart - 1, 10),           // id
+            csvLine.substring(nameStart, ageStart - 1),                // name
+            Integer.parseInt(csvLine, ageStart, gradeStart - 1, 10),   // age
+            csvLine.substring(gradeStart, emailStart - 1),             // grade
+            csvLine.substring(emailStart, emailEnd)                    // email
         );
     }
 }
@@ -105,18 +134,123 @@ class Student {
 /**
  * StudentManager class handles all business logic and operations
  * This is our service/manager class that manages the collection of students
+ *
+ * StudentManager is thread-safe, so one instance can serve many sessions.
+ * Lookups run in parallel on an optimistic read of a StampedLock and only take
+ * the read lock if a write happened at the same time; changes take the write
+ * lock one at a time. Returned Student objects are the live records, so read
+ * their details right away rather than keeping them around.
  */
 class StudentManager {
-    // ArrayList to store all students in memory
-    private ArrayList<Student> students;
+    
+    /**
+     * How changes are written to the disk
+     */
+    enum StorageMode {
+        CSV,        // rewrite the whole CSV file after every change
+        JOURNALED,  // CSV file is a snapshot, every change is appended to a journal
+        BINARY,     // binary record file, every change rewrites only its own record
+        MEMORY      // nothing is read or written (for tests and benchmarks)
+    }
+    
+    private static final int MAX_ID_FILTER_STAGES = 4;  // then the ID filter is rebuilt as one
+    private static final int ID_BLOCK_SIZE = 1000;      // IDs reserved per write of the sequence file
+    
+    // All students in memory, in the order they were added (deletes leave tombstones, see StudentList)
+    private StudentList students;
+    private IntObjectHashMap<Student> idIndex;  // ID -> student, for O(1) lookups
+    private IdBloomFilter idFilter;             // rules out new IDs before idIndex is asked
+    private double idFilterRate = 0.01;         // false positive rate of idFilter
+    private int idFilterStale;                  // deleted IDs idFilter still reports
+    private StudentIdSequence idSequence;       // hands out IDs for students added without one
+    private NameTrigramIndex nameIndex;         // for substring searches by name
+    private FuzzyNameIndex fuzzyIndex;          // for searches with spelling mistakes
+    private PhoneticNameIndex phoneticIndex;    // for names that sound alike
+    private NameAutocomplete autocomplete;      // name words by prefix, for type-ahead
+    private GradeIndex gradeIndex;              // grade -> IDs, for class rosters
+    private AgeIndex ageIndex;                  // age -> IDs, for age range queries
+    private HashMap<String, Student> emailIndex;  // normalized email -> student (see emailKey)
+    private int sharedEmails;                   // students whose email emailIndex gives to another
+    private EmailDomainIndex domainIndex;       // email domain -> IDs, for queries
+    private StudentQueryPlanner planner;        // runs StudentQuery searches on the indexes above
     private String fileName = "students.csv";  // File name for data persistence
+    private StorageMode mode;
+    private StudentJournal journal;            // only in StorageMode.JOURNALED
+    private StudentRecordFile recordFile;      // only in StorageMode.BINARY
+    private StudentCheckpointer checkpointer;  // only in StorageMode.JOURNALED
+    private final Object checkpointLock = new Object();  // one checkpoint at a time
+    private final StampedLock lock = new StampedLock();  // readers share, writers take turns
+    private int batchDepth;  // > 0 between beginBatch() and endBatch()
     
     /**
      * Constructor - initializes the student list and loads existing data
      */
     public StudentManager() {
-        students = new ArrayList<>();
-        loadFromFile();  // Load existing data when program starts
+        this("students.csv", StorageMode.JOURNALED);
+    }
+    
+    /**
+     * Constructor with custom storage settings
+     * In journaled and binary mode every change is forced to the disk before it returns.
+     * @param fileName - CSV data file
+     * @param mode - how changes are written to the disk
+     */
+    public StudentManager(String fileName, StorageMode mode) {
+        this(fileName, mode, StudentJournal.SyncPolicy.ALWAYS, 1);
+    }
+    
+    /**
+     * Constructor with custom storage settings and fsync policy
+     * @param fileName - CSV data file
+     * @param mode - how changes are written to the disk
+     * @param syncPolicy - when journal records or binary records are forced to the
+     *                     disk (used in StorageMode.JOURNALED and StorageMode.BINARY)
+     * @param syncInterval - changes between fsyncs for SyncPolicy.PERIODIC
+     */
+    public StudentManager(String fileName, StorageMode mode,
+                          StudentJournal.SyncPolicy syncPolicy, int syncInterval) {
+        this.fileName = fileName;
+        this.mode = mode;
+        students = new StudentList();
+        idIndex = new IntObjectHashMap<>();
+        idFilter = new IdBloomFilter(1024, idFilterRate);
+        nameIndex = new NameTrigramIndex();
+        fuzzyIndex = new FuzzyNameIndex(id -> idIndex.get(id).getName());
+        phoneticIndex = new PhoneticNameIndex();
+        autocomplete = new NameAutocomplete();
+        gradeIndex = new GradeIndex();
+        ageIndex = new AgeIndex();
+        emailIndex = new HashMap<>();
+        domainIndex = new EmailDomainIndex();
+        planner = new StudentQueryPlanner(students, idIndex, nameIndex, gradeIndex, ageIndex, domainIndex);
+        if (mode == StorageMode.JOURNALED) {
+            journal = new StudentJournal(siblingFileName(fileName, ".log"),
+                                         syncPolicy, syncInterval);
+        } else if (mode == StorageMode.BINARY) {
+            try {
+                recordFile = new StudentRecordFile(siblingFileName(fileName, ".dat"),
+                                                   siblingFileName(fileName, ".idx"),
+                                                   syncPolicy, syncInterval);
+            } catch (IOException e) {
+                System.out.println("❌ Error opening record file: " + e.getMessage());
+                System.out.println("⚠️  Falling back to CSV storage.");
+                this.mode = StorageMode.CSV;
+            }
+        }
+        idSequence = new StudentIdSequence(mode == StorageMode.MEMORY ? null
+                                           : siblingFileName(fileName, ".seq"), ID_BLOCK_SIZE);
+        if (mode != StorageMode.MEMORY) {
+            try {
+                idSequence.load();
+            } catch (IOException e) {
+                System.out.println("❌ Error loading ID sequence: " + e.getMessage());
+            }
+            loadFromFile();  // Load existing data when program starts
+        }
+        if (journal != null) {
+            checkpointer = new StudentCheckpointer(this);
+            checkpointer.start();
+        }
     }
     
     /**
@@ -124,15 +258,76 @@ class StudentManager {
      * @param student - Student object to be added
      */
     public void addStudent(Student student) {
-        students.add(student);
-        saveToFile();  // Save to file immediately after adding
-        System.out.println("✅ Student added successfully!");
+        try {
+            if (insertStudent(student)) {
+                System.out.println("✅ Student added successfully!");
+            } else {
+                System.out.println("❌ Student ID " + student.getId() + " already exists!");
+            }
+        } catch (DuplicateEmailException e) {
+            System.out.println("❌ " + e.getMessage() + "!");
+        }
+    }
+    
+    /**
+     * Adds a new student without printing anything
+     * @param student - Student object to be added
+     * @return true if the student was added, false if the ID is already taken
+     * @throws DuplicateEmailException if another student already has the email address
+     */
+    public boolean insertStudent(Student student) {
+        long stamp = lock.writeLock();
+        try {
+            if (idFilter.mightContain(student.getId()) && idIndex.containsKey(student.getId())) {
+                return false;
+            }
+            checkEmailFree(student.getEmail(), student.getId());
+            students.add(student);
+            indexStudent(student);
+            persistChange(StudentJournal.OP_ADD, student);  // Save immediately after adding
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Adds a new student with the next ID of the ID sequence, without printing anything
+     * The ID needs no check: the sequence never hands out an ID twice and moves
+     * past every ID that is loaded or added by hand.
+     * @return the added student with its new ID
+     * @throws DuplicateEmailException if another student already has the email
+     *         address (the ID is not handed out again)
+     */
+    public Student insertNewStudent(String name, int age, String grade, String email) {
+        long stamp = lock.writeLock();
+        try {
+            Student student = new Student(idSequence.next(), name, age, grade, email);
+            checkEmailFree(email, student.getId());
+            students.add(student);
+            indexStudent(student);
+            persistChange(StudentJournal.OP_ADD, student);
+            return student;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Hands out the next ID of the ID sequence without adding a student
+     * Threads do not wait for each other or for the write lock; the ID is not
+     * handed out again even if no student is added with it.
+     * @return a new student ID
+     */
+    public int nextStudentId() {
+        return idSequence.next();
     }
     
     /**
      * Displays all students in a formatted table
      */
     public void viewAllStudents() {
+        List<Student> students = getAllStudents();  // print from a copy, outside the lock
         if (students.isEmpty()) {
             System.out.println("📝 No students found in the system.");
             return;
@@ -149,18 +344,40 @@ class StudentManager {
         System.out.println("Total students: " + students.size());
     }
     
+    /**
+     * Gets a copy of the student list
+     * @return all students, in the order they were added
+     */
+    public List<Student> getAllStudents() {
+        long stamp = lock.readLock();
+        try {
+            return students.toList();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
     /**
      * Finds a student by their ID
      * @param id - student ID to search for
      * @return Student object if found, null otherwise
      */
     public Student findStudentById(int id) {
-        for (Student student : students) {
-            if (student.getId() == id) {
-                return student;
-            }
+        return read(() -> idIndex.get(id));  // null if student not found
+    }
+    
+    /**
+     * Finds a student by email address in constant time
+     * Case and surrounding spaces are ignored ("Ann@Mail.com " finds "ann@mail.com").
+     * @param email - email address to look for
+     * @return the student, or null if nobody has this email
+     */
+    public Student findStudentByEmail(String email) {
+        if (email == null) {
+            return null;
         }
-        return null;  // Student not found
+        String key = emailKey(email);
+        return read(() -> emailIndex.get(key));
     }
     
     /**
@@ -169,15 +386,200 @@ class StudentManager {
      * @return List of matching students
      */
     public List<Student> findStudentsByName(String name) {
-        List<Student> foundStudents = new ArrayList<>();
-        String searchName = name.toLowerCase();
-        
-        for (Student student : students) {
-            if (student.getName().toLowerCase().contains(searchName)) {
-                foundStudents.add(student);
+        return read(() -> {
+            int[] ids = nameIndex.search(name);  // matching IDs in ascending order
+            List<Student> foundStudents = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                foundStudents.add(idIndex.get(id));
+            }
+            return foundStudents;
+        });
+    }
+    
+    /**
+     * Finds students whose name is spelled almost like the given name
+     * Every word of the name may be up to maxDistance letters off (inserted,
+     * missing or wrong), e.g. "jonh smiht" finds "John Smith" with maxDistance 2.
+     * @param name - name to search for
+     * @param maxDistance - edits allowed per word (0 to FuzzyNameIndex.MAX_DISTANCE)
+     * @param limit - largest number of students to return
+     * @return matching students, closest spelling first
+     * @throws IllegalArgumentException if maxDistance is out of range
+     */
+    public List<Student> findStudentsByNameFuzzy(String name, int maxDistance, int limit) {
+        return read(() -> {
+            int[] ids = fuzzyIndex.search(name, maxDistance, limit);
+            List<Student> foundStudents = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                foundStudents.add(idIndex.get(id));
+            }
+            return foundStudents;
+        });
+    }
+    
+    /**
+     * Finds students whose name sounds like the given name (Soundex), e.g.
+     * "Jon Smyth" finds "John Smith". Every word of the name has to sound like
+     * a word of the student's name.
+     * @param name - name as it sounds
+     * @return matching students in ID order
+     */
+    public List<Student> findStudentsBySound(String name) {
+        return read(() -> {
+            int[] ids = phoneticIndex.search(name);
+            List<Student> foundStudents = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                foundStudents.add(idIndex.get(id));
+            }
+            return foundStudents;
+        });
+    }
+    
+    /**
+     * Suggests name words for a type-ahead search box
+     * @param prefix - beginning of a name word, e.g. "ma"
+     * @param limit - largest number of suggestions (1 to NameAutocomplete.MAX_COMPLETIONS)
+     * @return the most common name words starting with the prefix, e.g. "maria (120)"
+     * @throws IllegalArgumentException if limit is out of range
+     */
+    public List<NameAutocomplete.Completion> completeName(String prefix, int limit) {
+        return read(() -> autocomplete.complete(prefix, limit));
+    }
+    
+    /**
+     * Finds students in a grade (exact match)
+     * Uses the grade's posting list, so the cost depends on the size of the class,
+     * not on the number of students in the system
+     * @param grade - grade to look for, e.g. "10th"
+     * @return students in that grade, in ID order
+     */
+    public List<Student> findStudentsByGrade(String grade) {
+        int code = GradeDictionary.find(grade);
+        if (code == GradeDictionary.NO_GRADE) {
+            return new ArrayList<>();  // nobody has ever had this grade
+        }
+        return read(() -> {
+            int[] ids = gradeIndex.ids(code);
+            List<Student> foundStudents = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                foundStudents.add(idIndex.get(id));
+            }
+            return foundStudents;
+        });
+    }
+    
+    /**
+     * Counts the students in a grade without creating the list
+     * @param grade - grade to look for, e.g. "10th"
+     * @return number of students in that grade
+     */
+    public int countStudentsByGrade(String grade) {
+        int code = GradeDictionary.find(grade);
+        return code == GradeDictionary.NO_GRADE ? 0 : read(() -> gradeIndex.count(code));
+    }
+    
+    /**
+     * Finds students whose age is in a range
+     * Reads only the age buckets of the range instead of scanning every student
+     * @param min - lowest age (inclusive)
+     * @param max - highest age (inclusive)
+     * @return matching students, ordered by age and then ID
+     */
+    public List<Student> findStudentsByAgeRange(int min, int max) {
+        return read(() -> {
+            int[] ids = ageIndex.ids(min, max);
+            List<Student> foundStudents = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                foundStudents.add(idIndex.get(id));
             }
+            return foundStudents;
+        });
+    }
+    
+    /**
+     * Counts students whose age is in a range without creating the list
+     * @param min - lowest age (inclusive)
+     * @param max - highest age (inclusive)
+     * @return number of matching students
+     */
+    public int countByAgeRange(int min, int max) {
+        return read(() -> ageIndex.count(min, max));
+    }
+    
+    /**
+     * Finds the students matching a query (see StudentQuery)
+     * Indexes are used where the query allows it; only conditions without an
+     * index make the query scan all students. explain() shows the chosen plan.
+     * @param query - search condition
+     * @return matching students in ID order
+     */
+    public List<Student> query(StudentQuery query) {
+        long stamp = lock.readLock();
+        try {
+            return planner.plan(query).run();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Describes how query() would run a query, without running it
+     * @param query - search condition
+     * @return the plan, one step per line, with the estimated number of students
+     */
+    public String explain(StudentQuery query) {
+        long stamp = lock.readLock();
+        try {
+            return planner.plan(query).explain();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Reports the approximate heap used by the bitmap indexes, the
+     * autocomplete trie and the ID Bloom filter
+     * @return index name -> bytes
+     */
+    public Map<String, Long> indexMemoryBytes() {
+        long stamp = lock.readLock();
+        try {
+            Map<String, Long> sizes = new LinkedHashMap<>();
+            sizes.put("grade bitmaps", gradeIndex.memoryBytes());
+            sizes.put("age bitmaps", ageIndex.memoryBytes());
+            sizes.put("email domain bitmaps", domainIndex.memoryBytes());
+            sizes.put("name autocomplete trie", autocomplete.memoryBytes());
+            sizes.put("ID Bloom filter", idFilter.memoryBytes());
+            return sizes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Runs a lookup without locking and checks afterwards that no write happened
+     * in the meantime; if one did, the lookup is repeated under the read lock
+     * @param lookup - code that only reads the students and indexes
+     * @return result of the lookup
+     */
+    private <T> T read(Supplier<T> lookup) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = lookup.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // the lookup saw a half-finished write - validate() would fail too
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return lookup.get();
+        } finally {
+            lock.unlockRead(stamp);
         }
-        return foundStudents;
     }
     
     /**
@@ -196,11 +598,21 @@ class StudentManager {
         System.out.println("\n📝 Current details: " + student);
         System.out.println("\n🔄 Enter new details (press Enter to keep current value):");
         
+        // Collect the new values first, then apply them all at once
+        String name = null;
+        int age = 0;
+        String grade = null;
+        String email = null;
+        
         // Update name
         System.out.print("New name [" + student.getName() + "]: ");
         String newName = scanner.nextLine().trim();
         if (!newName.isEmpty()) {
-            student.setName(newName);
+            try {
+                name = StudentValidator.name(newName);
+            } catch (IllegalArgumentException e) {
+                System.out.println("⚠️  " + e.getMessage() + ". Keeping current name.");
+            }
         }
         
         // Update age
@@ -208,14 +620,11 @@ class StudentManager {
         String ageInput = scanner.nextLine().trim();
         if (!ageInput.isEmpty()) {
             try {
-                int newAge = Integer.parseInt(ageInput);
-                if (newAge > 0 && newAge < 150) {
-                    student.setAge(newAge);
-                } else {
-                    System.out.println("⚠️  Invalid age. Keeping current age.");
-                }
+                age = StudentValidator.age(Integer.parseInt(ageInput));
             } catch (NumberFormatException e) {
                 System.out.println("⚠️  Invalid age format. Keeping current age.");
+            } catch (IllegalArgumentException e) {
+                System.out.println("⚠️  Invalid age. Keeping current age.");
             }
         }
         
@@ -223,31 +632,76 @@ class StudentManager {
         System.out.print("New grade [" + student.getGrade() + "]: ");
         String newGrade = scanner.nextLine().trim();
         if (!newGrade.isEmpty()) {
-            student.setGrade(newGrade);
+            try {
+                grade = StudentValidator.grade(newGrade);
+            } catch (IllegalArgumentException e) {
+                System.out.println("⚠️  " + e.getMessage() + ". Keeping current grade.");
+            }
         }
         
         // Update email
         System.out.print("New email [" + student.getEmail() + "]: ");
         String newEmail = scanner.nextLine().trim();
         if (!newEmail.isEmpty()) {
-            student.setEmail(newEmail);
+            try {
+                email = StudentValidator.email(newEmail);
+            } catch (IllegalArgumentException e) {
+                System.out.println("⚠️  " + e.getMessage() + ". Keeping current email.");
+            }
         }
         
-        saveToFile();
+        try {
+            if (!updateStudent(id, name, age, grade, email)) {
+                System.out.println("❌ Student with ID " + id + " was deleted in the meantime!");
+                return false;
+            }
+        } catch (DuplicateEmailException e) {
+            System.out.println("❌ " + e.getMessage() + "!");
+            return false;
+        }
         System.out.println("✅ Student updated successfully!");
         return true;
     }
     
+    /**
+     * Updates student details by ID without asking or printing anything
+     * @param id - ID of student to update
+     * @param name - new name, or null to keep the current one
+     * @param age - new age, or 0 to keep the current one
+     * @param grade - new grade, or null to keep the current one
+     * @param email - new email, or null to keep the current one
+     * @return true if student was found and updated, false otherwise
+     * @throws DuplicateEmailException if another student already has the new email address
+     */
+    public boolean updateStudent(int id, String name, int age, String grade, String email) {
+        long stamp = lock.writeLock();
+        try {
+            Student student = idIndex.get(id);
+            if (student == null) {
+                return false;
+            }
+            if (email != null) {
+                checkEmailFree(email, id);
+            }
+            changeDetails(student,
+                          name != null ? name : student.getName(),
+                          age != 0 ? age : student.getAge(),
+                          grade != null ? grade : student.getGrade(),
+                          email != null ? email : student.getEmail());
+            persistChange(StudentJournal.OP_UPDATE, student);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
     /**
      * Deletes a student by ID
      * @param id - ID of student to delete
      * @return true if student was found and deleted, false otherwise
      */
     public boolean deleteStudent(int id) {
-        Student student = findStudentById(id);
-        if (student != null) {
-            students.remove(student);
-            saveToFile();
+        if (removeStudent(id)) {
             System.out.println("✅ Student deleted successfully!");
             return true;
         } else {
@@ -256,53 +710,701 @@ class StudentManager {
         }
     }
     
+    /**
+     * Deletes a student by ID without printing anything
+     * @param id - ID of student to delete
+     * @return true if student was found and deleted, false otherwise
+     */
+    public boolean removeStudent(int id) {
+        long stamp = lock.writeLock();
+        try {
+            Student student = idIndex.get(id);
+            if (student == null) {
+                return false;
+            }
+            students.remove(student);
+            unindexStudent(student);
+            persistChange(StudentJournal.OP_DELETE, student);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Adds many students at once: every student is validated and indexed, and the
+     * whole batch is written to the disk together (see beginBatch)
+     * @param newStudents - students to add
+     * @return one result per student, in the same order
+     */
+    public List<BulkResult> addAll(List<Student> newStudents) {
+        long stamp = lock.writeLock();
+        try {
+            return addAllLocked(newStudents);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Adds many students with new IDs from the ID sequence
+     * The IDs the students carry are ignored; the whole range of new IDs is
+     * reserved at once, so there are no ID checks and no DUPLICATE_ID results.
+     * @param newStudents - students to add
+     * @return one result per student, in the same order, with the new IDs
+     */
+    public List<BulkResult> addAllWithNewIds(List<Student> newStudents) {
+        if (newStudents.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long stamp = lock.writeLock();
+        try {
+            int first = idSequence.reserve(newStudents.size());
+            List<Student> numbered = new ArrayList<>(newStudents.size());
+            for (Student student : newStudents) {
+                numbered.add(new Student(first + numbered.size(), student.getName(), student.getAge(),
+                                         student.getGrade(), student.getEmail()));
+            }
+            return addAllLocked(numbered);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * addAll() for callers that already hold the write lock
+     */
+    private List<BulkResult> addAllLocked(List<Student> newStudents) {
+        List<BulkResult> results = new ArrayList<>(newStudents.size());
+        try {
+            enterBatch();
+            students.ensureCapacity(students.size() + newStudents.size());
+            for (Student student : newStudents) {
+                try {
+                    student = StudentValidator.student(student);
+                } catch (IllegalArgumentException e) {
+                    results.add(new BulkResult(student.getId(), BulkResult.Status.INVALID, e.getMessage()));
+                    continue;
+                }
+                if (idFilter.mightContain(student.getId()) && idIndex.containsKey(student.getId())) {
+                    results.add(new BulkResult(student.getId(), BulkResult.Status.DUPLICATE_ID, null));
+                    continue;
+                }
+                try {
+                    checkEmailFree(student.getEmail(), student.getId());
+                } catch (DuplicateEmailException e) {
+                    results.add(new BulkResult(student.getId(), BulkResult.Status.DUPLICATE_EMAIL, e.getMessage()));
+                    continue;
+                }
+                students.add(student);
+                indexStudent(student);
+                persistChange(StudentJournal.OP_ADD, student);
+                results.add(new BulkResult(student.getId(), BulkResult.Status.ADDED, null));
+            }
+        } finally {
+            leaveBatch();
+        }
+        return results;
+    }
+    
+    /**
+     * Updates many students at once and writes the whole batch to the disk together
+     * Each patch carries the student ID and the new details; like
+     * updateStudent(id, name, age, grade, email), a null field or an age of 0 keeps
+     * the current value.
+     * @param patches - changes to apply
+     * @return one result per patch, in the same order
+     */
+    public List<BulkResult> patchAll(List<Student> patches) {
+        List<BulkResult> results = new ArrayList<>(patches.size());
+        long stamp = lock.writeLock();
+        try {
+            enterBatch();
+            for (Student patch : patches) {
+                Student student = idIndex.get(patch.getId());
+                if (student == null) {
+                    results.add(new BulkResult(patch.getId(), BulkResult.Status.NOT_FOUND, null));
+                    continue;
+                }
+                String name;
+                int age;
+                String grade;
+                String email;
+                try {
+                    name = patch.getName() != null ? StudentValidator.name(patch.getName()) : student.getName();
+                    age = patch.getAge() != 0 ? StudentValidator.age(patch.getAge()) : student.getAge();
+                    grade = patch.getGrade() != null ? StudentValidator.grade(patch.getGrade()) : student.getGrade();
+                    email = patch.getEmail() != null ? StudentValidator.email(patch.getEmail()) : student.getEmail();
+                    checkEmailFree(email, patch.getId());
+                } catch (DuplicateEmailException e) {
+                    results.add(new BulkResult(patch.getId(), BulkResult.Status.DUPLICATE_EMAIL, e.getMessage()));
+                    continue;
+                } catch (IllegalArgumentException e) {
+                    results.add(new BulkResult(patch.getId(), BulkResult.Status.INVALID, e.getMessage()));
+                    continue;
+                }
+                changeDetails(student, name, age, grade, email);
+                persistChange(StudentJournal.OP_UPDATE, student);
+                results.add(new BulkResult(patch.getId(), BulkResult.Status.UPDATED, null));
+            }
+        } finally {
+            leaveBatch();
+            lock.unlockWrite(stamp);
+        }
+        return results;
+    }
+    
+    /**
+     * Deletes many students at once and writes the whole batch to the disk together
+     * @param ids - IDs of the students to delete
+     * @return one result per ID, in the same order
+     */
+    public List<BulkResult> removeAll(int[] ids) {
+        List<BulkResult> results = new ArrayList<>(ids.length);
+        long stamp = lock.writeLock();
+        try {
+            enterBatch();
+            for (int id : ids) {
+                Student student = idIndex.get(id);
+                if (student == null) {
+                    results.add(new BulkResult(id, BulkResult.Status.NOT_FOUND, null));
+                    continue;
+                }
+                students.remove(student);
+                unindexStudent(student);
+                persistChange(StudentJournal.OP_DELETE, student);
+                results.add(new BulkResult(id, BulkResult.Status.DELETED, null));
+            }
+        } finally {
+            leaveBatch();
+            lock.unlockWrite(stamp);
+        }
+        return results;
+    }
+    
+    /**
+     * Changes a student's details and keeps the indexes in sync
+     */
+    private void changeDetails(Student student, String name, int age, String grade, String email) {
+        boolean renamed = !student.getName().equals(name);  // the ID never changes
+        int oldGradeCode = student.getGradeCode();
+        int oldAge = student.getAge();
+        String oldEmailKey = emailKey(student.getEmail());
+        if (renamed) {
+            nameIndex.remove(student.getId());
+            fuzzyIndex.remove(student.getId(), student.getName());
+            phoneticIndex.remove(student.getId(), student.getName());
+            autocomplete.remove(student.getName());
+        }
+        student.setName(name);
+        student.setAge(age);
+        student.setGrade(grade);
+        student.setEmail(email);
+        if (renamed) {
+            nameIndex.add(student.getId(), name);
+            fuzzyIndex.add(student.getId(), name);
+            phoneticIndex.add(student.getId(), name);
+            autocomplete.add(name);
+        }
+        if (student.getGradeCode() != oldGradeCode) {
+            gradeIndex.remove(student.getId(), oldGradeCode);
+            gradeIndex.add(student.getId(), student.getGradeCode());
+        }
+        if (age != oldAge) {
+            ageIndex.remove(student.getId(), oldAge);
+            ageIndex.add(student.getId(), age);
+        }
+        String newEmailKey = emailKey(email);
+        if (!newEmailKey.equals(oldEmailKey)) {
+            releaseEmail(oldEmailKey, student);
+            claimEmail(newEmailKey, student);
+            domainIndex.remove(student.getId(), oldEmailKey);
+            domainIndex.add(student.getId(), newEmailKey);
+        }
+    }
+    
+    /**
+     * Adds a student to every lookup index
+     */
+    private void indexStudent(Student student) {
+        idIndex.put(student.getId(), student);
+        idFilter.add(student.getId());
+        idSequence.observe(student.getId());  // IDs given by hand are not handed out again
+        if (idFilter.stageCount() > MAX_ID_FILTER_STAGES) {
+            rebuildIdFilter();  // every stage is one more memory access per check
+        }
+        nameIndex.add(student.getId(), student.getName());
+        fuzzyIndex.add(student.getId(), student.getName());
+        phoneticIndex.add(student.getId(), student.getName());
+        autocomplete.add(student.getName());
+        gradeIndex.add(student.getId(), student.getGradeCode());
+        ageIndex.add(student.getId(), student.getAge());
+        claimEmail(emailKey(student.getEmail()), student);
+        domainIndex.add(student.getId(), student.getEmail());
+    }
+    
+    /**
+     * Removes a student from every lookup index
+     */
+    private void unindexStudent(Student student) {
+        idIndex.remove(student.getId());
+        nameIndex.remove(student.getId());
+        fuzzyIndex.remove(student.getId(), student.getName());
+        phoneticIndex.remove(student.getId(), student.getName());
+        autocomplete.remove(student.getName());
+        gradeIndex.remove(student.getId(), student.getGradeCode());
+        ageIndex.remove(student.getId(), student.getAge());
+        releaseEmail(emailKey(student.getEmail()), student);
+        domainIndex.remove(student.getId(), student.getEmail());
+        if (++idFilterStale > idIndex.size()) {
+            rebuildIdFilter();  // more than half of what the filter reports is gone
+        }
+    }
+    
+    /**
+     * Points an email address at a student in the email index
+     * The first one wins for loaded duplicates (older files were saved without
+     * the uniqueness check); the others are counted in sharedEmails.
+     */
+    private void claimEmail(String key, Student student) {
+        if (emailIndex.putIfAbsent(key, student) != null) {
+            sharedEmails++;
+        }
+    }
+    
+    /**
+     * Takes a student's email address out of the email index
+     * If the student was the one the index pointed at and another student still
+     * has the address (a loaded duplicate), the index moves on to the first of
+     * them, so findStudentByEmail and the uniqueness check keep finding it.
+     */
+    private void releaseEmail(String key, Student student) {
+        if (!emailIndex.remove(key, student)) {
+            sharedEmails--;  // the index points at another student with this address
+            return;
+        }
+        if (sharedEmails == 0) {
+            return;  // no duplicates, nobody else can have the address
+        }
+        for (Student other : students) {
+            if (other != student && emailKey(other.getEmail()).equals(key)) {
+                emailIndex.put(key, other);
+                sharedEmails--;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Builds a fresh ID filter from the students that are still there
+     * The filter cannot forget deleted IDs, so it is rebuilt after loading, on
+     * checkpoints and when deleted IDs outnumber the live ones; it is also rebuilt
+     * as one stage when it has grown too many. Call with the write lock held.
+     */
+    private void rebuildIdFilter() {
+        int size = idIndex.size();
+        IdBloomFilter filter = new IdBloomFilter(Math.max(1024, size + size / 4), idFilterRate);
+        idIndex.forEach((id, student) -> filter.add(id));
+        idFilter = filter;
+        idFilterStale = 0;
+    }
+    
+    /**
+     * Changes the false positive rate of the ID filter in front of isIdExists
+     * A lower rate costs more memory (about 10 bits per student at 1%, 14 at 0.1%)
+     * @param rate - largest share of new IDs that still need an index lookup (0 to 1)
+     */
+    public void setIdFilterFalsePositiveRate(double rate) {
+        if (!(rate > 0 && rate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        long stamp = lock.writeLock();
+        try {
+            idFilterRate = rate;
+            rebuildIdFilter();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Makes sure no other student has an email address
+     * @param email - email address to check
+     * @param id - the student who wants it (may already have it)
+     * @throws DuplicateEmailException if another student has it
+     */
+    private void checkEmailFree(String email, int id) {
+        Student owner = emailIndex.get(emailKey(email));
+        if (owner != null && owner.getId() != id) {
+            throw new DuplicateEmailException(email.trim(), owner.getId());
+        }
+    }
+    
+    /**
+     * Normalizes an email address for the email index: no surrounding spaces, lowercase
+     */
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+    
     /**
      * Saves all students to CSV file
      * This method handles file I/O and exception handling
      */
     public void saveToFile() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(fileName))) {
+        try {
+            writeSnapshot(getAllStudents());
+        } catch (IOException e) {
+            System.out.println("❌ Error saving to file: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Writes the given students to a temporary file and then renames it over the
+     * data file, so a crash in the middle never leaves a half-written CSV behind
+     * @param rows - students to write
+     */
+    private void writeSnapshot(Iterable<Student> rows) throws IOException {
+        File target = new File(fileName);
+        File temp = new File(fileName + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp);
+             PrintWriter writer = new PrintWriter(new BufferedWriter(
+                     new OutputStreamWriter(out, StandardCharsets.UTF_8)))) {
             // Write header
             writer.println("id,name,age,grade,email");
             
             // Write each student as CSV
-            for (Student student : students) {
+            for (Student student : rows) {
                 writer.println(student.toCSV());
             }
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("write to " + temp + " failed");
+            }
+            out.getFD().sync();
+        }
+        Files.move(temp.toPath(), target.toPath(),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Writes a fresh snapshot and drops the journal records it covers
+     * The lock is only held to copy the student list and to cut the journal, so the
+     * (slow) snapshot write does not block other operations. Students changed while
+     * the snapshot is written are also in the journal, which replays them by ID.
+     */
+    public void checkpoint() {
+        if (journal == null) {
+            return;
+        }
+        synchronized (checkpointLock) {
+            List<Student> rows;
+            long journalBytes;
+            long journalRecords;
+            long stamp = lock.readLock();  // keeps writers (and journal appends) out
+            try {
+                rows = students.toList();
+                journalBytes = journal.getSizeBytes();
+                journalRecords = journal.getRecordCount();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            
+            try {
+                writeSnapshot(rows);
+                stamp = lock.writeLock();
+                try {
+                    journal.compact(journalBytes, journalRecords);
+                    if (idFilterStale > 0) {
+                        rebuildIdFilter();  // drop the IDs deleted since the last one
+                    }
+                    students.vacuum();  // the tombstones of deleted students
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            } catch (IOException e) {
+                System.out.println("❌ Error writing checkpoint: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Replaces the default checkpoint triggers (use 0 to disable a trigger)
+     * @param maxLogBytes - checkpoint when the journal grows beyond this many bytes
+     * @param maxLogRecords - checkpoint when the journal has this many records
+     * @param maxIntervalMillis - checkpoint a non-empty journal at least this often
+     */
+    public void setCheckpointTriggers(long maxLogBytes, long maxLogRecords, long maxIntervalMillis) {
+        if (journal == null) {
+            return;
+        }
+        checkpointer.stop();
+        checkpointer = new StudentCheckpointer(this, maxLogBytes, maxLogRecords, maxIntervalMillis);
+        checkpointer.start();
+    }
+    
+    /**
+     * @return journal size in bytes (0 in CSV mode)
+     */
+    public long getJournalSizeBytes() {
+        return journal == null ? 0 : journal.getSizeBytes();
+    }
+    
+    /**
+     * @return number of records in the journal (0 in CSV mode)
+     */
+    public long getJournalRecordCount() {
+        return journal == null ? 0 : journal.getRecordCount();
+    }
+    
+    /**
+     * Starts a batch: until endBatch() the changes are kept in memory and then
+     * written to the disk together (one CSV rewrite, one journal write and fsync,
+     * or one record file sync). Batches can be nested; only the outermost
+     * endBatch() writes. Changes made by other threads meanwhile join the batch.
+     */
+    public void beginBatch() {
+        long stamp = lock.writeLock();
+        try {
+            enterBatch();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Ends a batch started with beginBatch() and writes its changes to the disk
+     */
+    public void endBatch() {
+        long stamp = lock.writeLock();
+        try {
+            leaveBatch();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * beginBatch() for callers that already hold the write lock
+     */
+    private void enterBatch() {
+        if (batchDepth++ == 0 && journal != null) {
+            journal.beginBatch();
+        }
+    }
+    
+    /**
+     * endBatch() for callers that already hold the write lock
+     */
+    private void leaveBatch() {
+        if (batchDepth == 0 || --batchDepth > 0 || mode == StorageMode.MEMORY) {
+            return;
+        }
+        try {
+            if (journal != null) {
+                journal.endBatch();
+            } else if (recordFile != null) {
+                recordFile.syncIfDue();
+            } else {
+                writeSnapshot(students);
+            }
         } catch (IOException e) {
-            System.out.println("❌ Error saving to file: " + e.getMessage());
+            System.out.println("❌ Error saving batch: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Writes a single change to the disk
+     * In CSV mode the whole file is rewritten, in journaled mode one record is appended
+     * and in binary mode only the student's own record is written
+     * @param op - journal operation (add, update or delete)
+     * @param student - student that was changed
+     */
+    private void persistChange(char op, Student student) {
+        if (mode == StorageMode.MEMORY) {
+            return;
+        }
+        try {
+            if (journal != null) {
+                journal.append(op, op == StudentJournal.OP_DELETE
+                                   ? String.valueOf(student.getId()) : student.toCSV());
+            } else if (recordFile != null) {
+                if (op == StudentJournal.OP_DELETE) {
+                    recordFile.delete(student.getId());
+                } else {
+                    recordFile.write(student);
+                }
+                if (batchDepth == 0) {
+                    recordFile.syncIfDue();  // in a batch, endBatch() syncs once
+                }
+            } else if (batchDepth == 0) {
+                writeSnapshot(students);  // in a batch, endBatch() writes the file once
+            }
+        } catch (IOException e) {
+            System.out.println("❌ Error saving change: " + e.getMessage());
         }
     }
     
     /**
      * Loads students from CSV file
+     * The file is memory-mapped and parsed in parallel chunks (see ParallelCsvLoader)
+     * In journaled mode the journal is replayed on top of the CSV snapshot afterwards
      * This method handles file I/O and exception handling
      */
     public void loadFromFile() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-            String line = reader.readLine(); // Skip header
-            
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    Student student = Student.fromCSV(line);
-                    students.add(student);
+        if (recordFile != null) {
+            loadFromRecordFile();
+            return;
+        }
+        try {
+            List<Student> loaded = new ParallelCsvLoader().load(new File(fileName).toPath());
+            students.ensureCapacity(students.size() + loaded.size());
+            int skipped = 0;
+            for (Student student : loaded) {
+                if (idIndex.containsKey(student.getId())) {
+                    skipped++;  // first row wins for duplicate IDs
+                    continue;
                 }
+                students.add(student);
+                indexStudent(student);
             }
             System.out.println("📁 Loaded " + students.size() + " students from file.");
-        } catch (FileNotFoundException e) {
+            if (skipped > 0) {
+                System.out.println("⚠️  Skipped " + skipped + " rows whose student ID an earlier row already has.");
+            }
+        } catch (NoSuchFileException e) {
             System.out.println("📁 No existing data file found. Starting fresh.");
         } catch (IOException e) {
             System.out.println("❌ Error loading from file: " + e.getMessage());
         }
+        
+        if (journal != null) {
+            replayJournal();
+        }
+        rebuildIdFilter();  // one stage sized for what was loaded
+        warnSharedEmails();
+    }
+    
+    /**
+     * Loads students from the binary record file
+     * The first time binary mode is used, the existing CSV file is imported
+     */
+    private void loadFromRecordFile() {
+        try {
+            File csvFile = new File(fileName);
+            if (recordFile.size() == 0 && csvFile.exists()) {
+                int imported = 0;
+                for (Student student : new ParallelCsvLoader().load(csvFile.toPath())) {
+                    if (!recordFile.contains(student.getId())) {  // first row wins for duplicate IDs
+                        recordFile.write(student);
+                        imported++;
+                    }
+                }
+                recordFile.sync();
+                System.out.println("📁 Imported " + imported + " students from " + fileName + ".");
+            }
+            
+            for (Student student : recordFile.readAll()) {
+                students.add(student);
+                indexStudent(student);
+            }
+            System.out.println("📁 Loaded " + students.size() + " students from record file.");
+        } catch (IOException e) {
+            System.out.println("❌ Error loading from record file: " + e.getMessage());
+        }
+        rebuildIdFilter();
+        warnSharedEmails();
+    }
+    
+    /**
+     * Reports loaded students whose email address an earlier student already has
+     * (older files were saved without the uniqueness check). findStudentByEmail
+     * returns the first of them.
+     */
+    private void warnSharedEmails() {
+        if (sharedEmails > 0) {
+            System.out.println("⚠️  " + sharedEmails + " students have an email address that another student already uses.");
+        }
+    }
+    
+    /**
+     * Re-applies the changes recorded in the journal since the last snapshot
+     * Adds and updates carry the full record, so replaying is an upsert by ID
+     */
+    private void replayJournal() {
+        try {
+            long replayed = journal.replay(new StudentJournal.ReplayHandler() {
+                @Override
+                public void onUpsert(Student student) {
+                    Student existing = findStudentById(student.getId());
+                    if (existing != null) {
+                        changeDetails(existing, student.getName(), student.getAge(),
+                                      student.getGrade(), student.getEmail());
+                    } else {
+                        students.add(student);
+                        indexStudent(student);
+                    }
+                }
+                
+                @Override
+                public void onDelete(int id) {
+                    Student existing = findStudentById(id);
+                    if (existing != null) {
+                        students.remove(existing);
+                        unindexStudent(existing);
+                    }
+                }
+            });
+            if (replayed > 0) {
+                System.out.println("📁 Replayed " + replayed + " changes from journal ("
+                                   + students.size() + " students).");
+            }
+        } catch (IOException e) {
+            System.out.println("❌ Error reading journal: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Flushes pending journal records and closes the journal or record file
+     * Call this before the program exits
+     */
+    public void close() {
+        if (checkpointer != null) {
+            checkpointer.stop();
+        }
+        long stamp = lock.writeLock();  // waits for changes that are being written
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+            if (recordFile != null) {
+                recordFile.close();
+            }
+        } catch (IOException e) {
+            System.out.println("❌ Error closing data files: " + e.getMessage());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Builds a related file name from the data file name (students.csv -> students.log)
+     * @param extension - new extension including the dot
+     */
+    private static String siblingFileName(String fileName, String extension) {
+        int dot = fileName.lastIndexOf('.');
+        return (dot > 0 ? fileName.substring(0, dot) : fileName) + extension;
     }
     
     /**
      * Checks if a student ID already exists
+     * New IDs are usually ruled out by the ID Bloom filter alone; only IDs it
+     * reports as maybe taken are looked up in the index.
      * @param id - ID to check
      * @return true if ID exists, false otherwise
      */
     public boolean isIdExists(int id) {
-        return findStudentById(id) != null;
+        return read(() -> idFilter.mightContain(id) && idIndex.containsKey(id));
     }
     
     /**
@@ -310,7 +1412,7 @@ class StudentManager {
      * @return number of students in the system
      */
     public int getStudentCount() {
-        return students.size();
+        return read(() -> students.size());
     }
 }
 
@@ -326,6 +1428,22 @@ public class StudentManagementSystem {
      * Main method - entry point of the program
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? parsePort(args[1]) : 8080;
+            if (port < 0) {
+                System.out.println("❌ Invalid port: " + args[1]);
+                System.out.println("Usage: java StudentManagementSystem --server [port]  (port 0-65535, default 8080)");
+                manager.close();
+                return;
+            }
+            startServer(port);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args.length > 1 ? args[1] : "-");
+            return;
+        }
+        
         System.out.println("🎓 Welcome to Student Management System!");
         System.out.println("==========================================");
         
@@ -351,6 +1469,7 @@ public class StudentManagementSystem {
                     break;
                 case 6:
                     System.out.println("👋 Thank you for using Student Management System!");
+                    manager.close();
                     System.out.println("💾 All data has been saved automatically.");
                     System.exit(0);
                     break;
@@ -364,6 +1483,54 @@ public class StudentManagementSystem {
         }
     }
     
+    /**
+     * Runs the HTTP API instead of the menu (java StudentManagementSystem --server [port])
+     * The server keeps running until the program is stopped (for example with Ctrl+C)
+     * @param port - TCP port to listen on
+     */
+    public static void startServer(int port) {
+        try {
+            StudentHttpServer server = new StudentHttpServer(manager, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(1);
+                manager.close();
+                System.out.println("👋 Server stopped. All data has been saved.");
+            }));
+            server.start();
+            System.out.println("🌐 Student API listening on http://localhost:" + server.getPort() + "/students");
+        } catch (IOException e) {
+            System.out.println("❌ Error starting server: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Reads a TCP port number from the command line
+     * @return the port, or -1 if the text is not a number from 0 to 65535
+     */
+    private static int parsePort(String text) {
+        try {
+            int port = Integer.parseInt(text.trim());
+            return port >= 0 && port <= 65535 ? port : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * Runs commands from a file or stdin instead of the menu
+     * (java StudentManagementSystem --batch [file], see StudentBatchRunner)
+     * @param source - command file name, or "-" for stdin
+     */
+    public static void runBatch(String source) {
+        try (InputStream in = source.equals("-") ? System.in : new FileInputStream(source)) {
+            new StudentBatchRunner(manager, System.out).run(in);
+        } catch (IOException e) {
+            System.out.println("❌ Error reading commands: " + e.getMessage());
+        } finally {
+            manager.close();
+        }
+    }
+    
     /**
      * Displays the main menu options
      */
@@ -402,53 +1569,53 @@ public class StudentManagementSystem {
         System.out.println("=".repeat(30));
         
         try {
-            // Get student ID
-            System.out.print("Enter Student ID: ");
-            int id = Integer.parseInt(scanner.nextLine().trim());
+            // Get student ID (none: the next free one is given when the student is added)
+            System.out.print("Enter Student ID (or press Enter for a new one): ");
+            String idText = scanner.nextLine().trim();
+            int id = idText.isEmpty() ? 0 : Integer.parseInt(idText);
             
-            if (manager.isIdExists(id)) {
+            if (!idText.isEmpty() && manager.isIdExists(id)) {
                 System.out.println("❌ Student ID " + id + " already exists!");
                 return;
             }
             
-            // Get student name
+            // Get student name (same rules as the HTTP API, see StudentValidator)
             System.out.print("Enter Student Name: ");
-            String name = scanner.nextLine().trim();
-            if (name.isEmpty()) {
-                System.out.println("❌ Name cannot be empty!");
-                return;
-            }
+            String name = StudentValidator.name(scanner.nextLine());
             
             // Get student age
             System.out.print("Enter Student Age: ");
-            int age = Integer.parseInt(scanner.nextLine().trim());
-            if (age < 1 || age > 150) {
-                System.out.println("❌ Please enter a valid age (1-150)!");
-                return;
-            }
+            int age = StudentValidator.age(Integer.parseInt(scanner.nextLine().trim()));
             
             // Get student grade
             System.out.print("Enter Student Grade: ");
-            String grade = scanner.nextLine().trim();
-            if (grade.isEmpty()) {
-                System.out.println("❌ Grade cannot be empty!");
-                return;
-            }
+            String grade = StudentValidator.grade(scanner.nextLine());
             
             // Get student email
             System.out.print("Enter Student Email: ");
-            String email = scanner.nextLine().trim();
-            if (email.isEmpty() || !email.contains("@")) {
-                System.out.println("❌ Please enter a valid email address!");
+            String email = StudentValidator.email(scanner.nextLine());
+            Student owner = manager.findStudentByEmail(email);
+            if (owner != null) {
+                System.out.println("❌ Email " + email + " is already used by student ID " + owner.getId() + "!");
                 return;
             }
             
             // Create and add the student
-            Student student = new Student(id, name, age, grade, email);
-            manager.addStudent(student);
+            if (idText.isEmpty()) {
+                try {
+                    Student student = manager.insertNewStudent(name, age, grade, email);
+                    System.out.println("✅ Student added successfully with ID " + student.getId() + "!");
+                } catch (DuplicateEmailException e) {
+                    System.out.println("❌ " + e.getMessage() + "!");
+                }
+            } else {
+                manager.addStudent(new Student(id, name, age, grade, email));
+            }
             
         } catch (NumberFormatException e) {
             System.out.println("❌ Please enter valid numbers for ID and age!");
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage() + "!");
         }
     }
     
@@ -498,6 +1665,55 @@ public class StudentManagementSystem {
         }
     }
     
+    /**
+     * Asks for several conditions (all optional) and finds the students matching all of them
+     * The query plan is printed before the results.
+     */
+    public static void advancedSearchFromInput() {
+        System.out.println("Leave a condition empty to skip it.");
+        List<StudentQuery> conditions = new ArrayList<>();
+        
+        System.out.print("Name contains: ");
+        String name = scanner.nextLine().trim();
+        if (!name.isEmpty()) {
+            conditions.add(StudentQuery.nameContains(name));
+        }
+        System.out.print("Grade: ");
+        String grade = scanner.nextLine().trim();
+        if (!grade.isEmpty()) {
+            conditions.add(StudentQuery.gradeIs(grade));
+        }
+        System.out.print("Minimum age: ");
+        String minAge = scanner.nextLine().trim();
+        System.out.print("Maximum age: ");
+        String maxAge = scanner.nextLine().trim();
+        if (!minAge.isEmpty() || !maxAge.isEmpty()) {
+            conditions.add(StudentQuery.ageBetween(minAge.isEmpty() ? 0 : Integer.parseInt(minAge),
+                                                   maxAge.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(maxAge)));
+        }
+        System.out.print("Email domain (e.g., gmail.com): ");
+        String domain = scanner.nextLine().trim();
+        if (!domain.isEmpty()) {
+            conditions.add(StudentQuery.emailDomain(domain));
+        }
+        if (conditions.isEmpty()) {
+            System.out.println("❌ Please enter at least one condition!");
+            return;
+        }
+        
+        StudentQuery query = StudentQuery.and(conditions.toArray(new StudentQuery[0]));
+        System.out.println("\n🧭 " + manager.explain(query).trim());
+        List<Student> foundStudents = manager.query(query);
+        if (!foundStudents.isEmpty()) {
+            System.out.println("\n✅ Found " + foundStudents.size() + " student(s):");
+            for (int i = 0; i < foundStudents.size(); i++) {
+                System.out.println((i + 1) + ". " + foundStudents.get(i));
+            }
+        } else {
+            System.out.println("❌ No students match all conditions.");
+        }
+    }
+    
     /**
      * Handles searching for students from user input
      */
@@ -506,7 +1722,11 @@ public class StudentManagementSystem {
         System.out.println("=".repeat(30));
         System.out.println("1. Search by ID");
         System.out.println("2. Search by Name");
-        System.out.print("Choose search type (1 or 2): ");
+        System.out.println("3. Search by Grade");
+        System.out.println("4. Search by Age Range");
+        System.out.println("5. Advanced Search (combine conditions)");
+        System.out.println("6. Search by Name Sound (e.g. Smyth finds Smith)");
+        System.out.print("Choose search type (1-6): ");
         
         try {
             int searchType = Integer.parseInt(scanner.nextLine().trim());
@@ -537,6 +1757,61 @@ public class StudentManagementSystem {
                     }
                 } else {
                     System.out.println("❌ No students found with name containing: " + name);
+                    List<Student> similar = manager.findStudentsByNameFuzzy(name, 2, 10);
+                    if (!similar.isEmpty()) {
+                        System.out.println("🔎 Did you mean:");
+                        for (int i = 0; i < similar.size(); i++) {
+                            System.out.println((i + 1) + ". " + similar.get(i));
+                        }
+                    }
+                }
+            } else if (searchType == 3) {
+                // Search by grade
+                System.out.print("Enter Grade (e.g., 10th, 12th): ");
+                String grade = scanner.nextLine().trim();
+                
+                List<Student> foundStudents = manager.findStudentsByGrade(grade);
+                if (!foundStudents.isEmpty()) {
+                    System.out.println("\n✅ Found " + foundStudents.size() + " student(s) in grade " + grade + ":");
+                    for (int i = 0; i < foundStudents.size(); i++) {
+                        System.out.println((i + 1) + ". " + foundStudents.get(i));
+                    }
+                } else {
+                    System.out.println("❌ No students found in grade: " + grade);
+                }
+            } else if (searchType == 4) {
+                // Search by age range
+                System.out.print("Enter Minimum Age: ");
+                int minAge = Integer.parseInt(scanner.nextLine().trim());
+                System.out.print("Enter Maximum Age: ");
+                int maxAge = Integer.parseInt(scanner.nextLine().trim());
+                
+                List<Student> foundStudents = manager.findStudentsByAgeRange(minAge, maxAge);
+                if (!foundStudents.isEmpty()) {
+                    System.out.println("\n✅ Found " + foundStudents.size() + " student(s) aged "
+                                       + minAge + "-" + maxAge + ":");
+                    for (int i = 0; i < foundStudents.size(); i++) {
+                        System.out.println((i + 1) + ". " + foundStudents.get(i));
+                    }
+                } else {
+                    System.out.println("❌ No students found aged " + minAge + "-" + maxAge);
+                }
+            } else if (searchType == 5) {
+                advancedSearchFromInput();
+            } else if (searchType == 6) {
+                // Search by how the name sounds
+                System.out.print("Enter Student Name as it sounds: ");
+                String name = scanner.nextLine().trim();
+                
+                List<Student> foundStudents = manager.findStudentsBySound(name);
+                if (!foundStudents.isEmpty()) {
+                    System.out.println("\n✅ Found " + foundStudents.size() + " student(s) with a name sounding like "
+                                       + name + ":");
+                    for (int i = 0; i < foundStudents.size(); i++) {
+                        System.out.println((i + 1) + ". " + foundStudents.get(i));
+                    }
+                } else {
+                    System.out.println("❌ No students found with a name sounding like: " + name);
                 }
             } else {
                 System.out.println("❌ Invalid search type!");
@@ -0,0 +1,169 @@
+import java.util.*;
+
+/**
+ * StudentQuery is a search condition on students, built from small pieces:
+ *   StudentQuery.and(StudentQuery.gradeIs("10th"),
+ *                    StudentQuery.ageBetween(15, 16),
+ *                    StudentQuery.not(StudentQuery.nameContains("smith")))
+ * Run it with StudentManager.query(), or see how it would be run with
+ * StudentManager.explain(). Queries are immutable and can be reused.
+ */
+class StudentQuery {
+    
+    /**
+     * What kind of condition a query node is
+     */
+    enum Kind {
+        NAME_CONTAINS,  // text
+        GRADE_EQUALS,   // text
+        AGE_BETWEEN,    // min, max
+        EMAIL_DOMAIN,   // text (lowercase, without the '@')
+        ID_BETWEEN,     // min, max
+        AND,            // children
+        OR,             // children
+        NOT             // children.get(0)
+    }
+    
+    final Kind kind;
+    final String text;
+    final int min;
+    final int max;
+    final List<StudentQuery> children;
+    
+    private StudentQuery(Kind kind, String text, int min, int max, List<StudentQuery> children) {
+        this.kind = kind;
+        this.text = text;
+        this.min = min;
+        this.max = max;
+        this.children = children;
+    }
+    
+    /**
+     * Name contains the text (case-insensitive)
+     */
+    public static StudentQuery nameContains(String text) {
+        return new StudentQuery(Kind.NAME_CONTAINS, Objects.requireNonNull(text), 0, 0, List.of());
+    }
+    
+    /**
+     * Grade is exactly the given grade
+     */
+    public static StudentQuery gradeIs(String grade) {
+        return new StudentQuery(Kind.GRADE_EQUALS, Objects.requireNonNull(grade), 0, 0, List.of());
+    }
+    
+    /**
+     * Age is between min and max (both inclusive)
+     */
+    public static StudentQuery ageBetween(int min, int max) {
+        return new StudentQuery(Kind.AGE_BETWEEN, null, min, max, List.of());
+    }
+    
+    /**
+     * Email address is at the given domain, e.g. "gmail.com" (case-insensitive)
+     */
+    public static StudentQuery emailDomain(String domain) {
+        String lower = domain.trim().toLowerCase(Locale.ROOT);
+        if (lower.startsWith("@")) {
+            lower = lower.substring(1);
+        }
+        return new StudentQuery(Kind.EMAIL_DOMAIN, lower, 0, 0, List.of());
+    }
+    
+    /**
+     * ID is between min and max (both inclusive)
+     */
+    public static StudentQuery idBetween(int min, int max) {
+        return new StudentQuery(Kind.ID_BETWEEN, null, min, max, List.of());
+    }
+    
+    /**
+     * All of the conditions hold
+     */
+    public static StudentQuery and(StudentQuery... queries) {
+        return combine(Kind.AND, queries);
+    }
+    
+    /**
+     * At least one of the conditions holds
+     */
+    public static StudentQuery or(StudentQuery... queries) {
+        return combine(Kind.OR, queries);
+    }
+    
+    /**
+     * The condition does not hold
+     */
+    public static StudentQuery not(StudentQuery query) {
+        return new StudentQuery(Kind.NOT, null, 0, 0, List.of(query));
+    }
+    
+    private static StudentQuery combine(Kind kind, StudentQuery[] queries) {
+        if (queries.length == 0) {
+            throw new IllegalArgumentException(kind + " needs at least one condition");
+        }
+        if (queries.length == 1) {
+            return queries[0];
+        }
+        return new StudentQuery(kind, null, 0, 0, List.of(queries));
+    }
+    
+    /**
+     * Checks the condition on one student
+     * @return true if the student matches
+     */
+    public boolean matches(Student student) {
+        switch (kind) {
+            case NAME_CONTAINS:
+                return student.getName().toLowerCase().contains(text.toLowerCase());
+            case GRADE_EQUALS:
+                return text.equals(student.getGrade());
+            case AGE_BETWEEN:
+                return student.getAge() >= min && student.getAge() <= max;
+            case EMAIL_DOMAIN:
+                return text.equals(EmailDomainIndex.domainOf(student.getEmail()));
+            case ID_BETWEEN:
+                return student.getId() >= min && student.getId() <= max;
+            case AND:
+                for (StudentQuery child : children) {
+                    if (!child.matches(student)) {
+                        return false;
+                    }
+                }
+                return true;
+            case OR:
+                for (StudentQuery child : children) {
+                    if (child.matches(student)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:  // NOT
+                return !children.get(0).matches(student);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        switch (kind) {
+            case NAME_CONTAINS:
+                return "name contains \"" + text + "\"";
+            case GRADE_EQUALS:
+                return "grade = \"" + text + "\"";
+            case AGE_BETWEEN:
+                return "age " + min + "-" + max;
+            case EMAIL_DOMAIN:
+                return "email domain = \"" + text + "\"";
+            case ID_BETWEEN:
+                return "id " + min + "-" + max;
+            case NOT:
+                return "NOT " + children.get(0);
+            default:  // AND, OR
+                StringJoiner joined = new StringJoiner(" " + kind + " ", "(", ")");
+                for (StudentQuery child : children) {
+                    joined.add(child.toString());
+                }
+                return joined.toString();
+        }
+    }
+}
@@ -0,0 +1,508 @@
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * StudentQueryPlanner decides how a StudentQuery is answered with StudentManager's indexes
+ *   - name contains (3+ letters) -> trigram index, small ID ranges -> ID lookups
+ *   - grade, age range and email domain -> bitmap indexes (CompressedBitmap)
+ *   - AND starts from its most selective indexed condition. Bitmaps are combined
+ *     with a bitmap AND (or probed per candidate when the start is an ID list),
+ *     other ID lists of a similar size are intersected, and the remaining
+ *     conditions are checked on the candidates
+ *   - OR uses the union of its parts (a bitmap OR when all parts are bitmaps)
+ *     when every part has an index
+ *   - anything else (NOT, short name searches, ...) on its own needs a full scan
+ * Every plan produces the exact matching IDs; estimates only guide the choices.
+ *
+ * The planner reads the manager's lists and indexes directly, so it must only be
+ * used while StudentManager holds its lock.
+ */
+class StudentQueryPlanner {
+    private static final int INTERSECT_RATIO = 8;  // a bigger list is cheaper to check per candidate
+    
+    private final StudentList students;
+    private final IntObjectHashMap<Student> idIndex;
+    private final NameTrigramIndex nameIndex;
+    private final GradeIndex gradeIndex;
+    private final AgeIndex ageIndex;
+    private final EmailDomainIndex domainIndex;
+    
+    /**
+     * Constructor - the planner keeps references, not copies, of the manager's data
+     */
+    StudentQueryPlanner(StudentList students, IntObjectHashMap<Student> idIndex,
+                        NameTrigramIndex nameIndex, GradeIndex gradeIndex, AgeIndex ageIndex,
+                        EmailDomainIndex domainIndex) {
+        this.students = students;
+        this.idIndex = idIndex;
+        this.nameIndex = nameIndex;
+        this.gradeIndex = gradeIndex;
+        this.ageIndex = ageIndex;
+        this.domainIndex = domainIndex;
+    }
+    
+    /**
+     * Chooses how to run a query
+     * @param query - condition to plan
+     * @return plan using indexes where possible, a full scan otherwise
+     */
+    public Plan plan(StudentQuery query) {
+        Plan plan = indexPlan(query);
+        return plan != null ? plan : new ScanPlan(query);
+    }
+    
+    /**
+     * Plans a query with indexes only
+     * @return the plan, or null if some part of the query has no index
+     */
+    private Plan indexPlan(StudentQuery query) {
+        switch (query.kind) {
+            case NAME_CONTAINS:
+                int nameEstimate = nameIndex.estimate(query.text);
+                if (nameEstimate < 0) {
+                    return null;  // too short for trigrams
+                }
+                return new IndexPlan(query, "trigram index", nameEstimate,
+                                     () -> nameIndex.search(query.text));
+            case GRADE_EQUALS:
+                int code = GradeDictionary.find(query.text);
+                return new BitmapPlan(query, "grade bitmap", gradeIndex.count(code),
+                                      () -> gradeIndex.bitmap(code));
+            case AGE_BETWEEN:
+                return new BitmapPlan(query, "age bitmaps", ageIndex.count(query.min, query.max),
+                                      () -> ageIndex.bitmap(query.min, query.max));
+            case EMAIL_DOMAIN:
+                CompressedBitmap domain = domainIndex.bitmap(query.text);
+                return new BitmapPlan(query, "email domain bitmap", domain.cardinality(), () -> domain);
+            case ID_BETWEEN:
+                long width = (long) query.max - query.min + 1;
+                if (width > students.size()) {
+                    return null;  // a scan is cheaper than this many lookups
+                }
+                return new IndexPlan(query, "ID lookups", (int) Math.max(0, width), () -> lookupIds(query));
+            case AND:
+                return andPlan(query);
+            case OR:
+                List<Plan> parts = new ArrayList<>();
+                for (StudentQuery child : query.children) {
+                    Plan part = indexPlan(child);
+                    if (part == null) {
+                        return null;  // the union would miss what this part matches
+                    }
+                    parts.add(part);
+                }
+                return new OrPlan(query, parts);
+            default:  // NOT
+                return null;
+        }
+    }
+    
+    private Plan andPlan(StudentQuery query) {
+        List<Plan> indexed = new ArrayList<>();
+        List<StudentQuery> filters = new ArrayList<>();
+        for (StudentQuery child : query.children) {
+            Plan part = indexPlan(child);
+            if (part != null) {
+                indexed.add(part);
+            } else {
+                filters.add(child);
+            }
+        }
+        if (indexed.isEmpty()) {
+            return null;
+        }
+        indexed.sort(Comparator.comparingInt(Plan::estimate));
+        Plan driver = indexed.get(0);
+        List<Plan> bitmaps = new ArrayList<>();
+        List<Plan> intersected = new ArrayList<>();
+        for (Plan part : indexed.subList(1, indexed.size())) {
+            if (part.hasBitmap()) {
+                bitmaps.add(part);  // combining or probing a bitmap is cheap at any size
+            } else if (part.estimate() <= (long) driver.estimate() * INTERSECT_RATIO) {
+                intersected.add(part);
+            } else {
+                filters.add(part.query);  // checking the few candidates beats reading this list
+            }
+        }
+        return new AndPlan(query, driver, bitmaps, intersected, filters);
+    }
+    
+    private int[] lookupIds(StudentQuery query) {
+        int[] ids = new int[16];
+        int count = 0;
+        for (long id = query.min; id <= query.max; id++) {
+            if (idIndex.containsKey((int) id)) {
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                ids[count++] = (int) id;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+    
+    /**
+     * How a query (or part of one) is answered
+     */
+    abstract class Plan {
+        final StudentQuery query;
+        
+        Plan(StudentQuery query) {
+            this.query = query;
+        }
+        
+        /**
+         * @return expected number of matching students (an upper bound)
+         */
+        abstract int estimate();
+        
+        /**
+         * @return IDs of the matching students in ascending order
+         */
+        abstract int[] ids();
+        
+        /**
+         * @return true if bitmap() gives a bitmap; a cheap check that builds nothing
+         */
+        boolean hasBitmap() {
+            return false;
+        }
+        
+        /**
+         * @return the matching IDs as a bitmap (read only), or null if this plan
+         *         does not produce one
+         */
+        CompressedBitmap bitmap() {
+            return null;
+        }
+        
+        /**
+         * Appends the plan's lines
+         * @param indent - indentation of the first line (nested steps get more)
+         * @param label - what the step does within its parent, e.g. "intersect "
+         */
+        abstract void explain(StringBuilder out, String indent, String label);
+        
+        /**
+         * Runs the plan
+         * @return matching students in ID order
+         */
+        public List<Student> run() {
+            int[] ids = ids();
+            List<Student> found = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                found.add(idIndex.get(id));
+            }
+            return found;
+        }
+        
+        /**
+         * Describes the plan, one step per line
+         */
+        public String explain() {
+            StringBuilder out = new StringBuilder("Query: ").append(query).append('\n');
+            explain(out, "  ", "");
+            return out.toString();
+        }
+    }
+    
+    private class IndexPlan extends Plan {
+        private final String index;
+        private final int estimate;
+        private final Supplier<int[]> lookup;
+        
+        IndexPlan(StudentQuery query, String index, int estimate, Supplier<int[]> lookup) {
+            super(query);
+            this.index = index;
+            this.estimate = estimate;
+            this.lookup = lookup;
+        }
+        
+        @Override
+        int estimate() {
+            return estimate;
+        }
+        
+        @Override
+        int[] ids() {
+            return lookup.get();
+        }
+        
+        @Override
+        void explain(StringBuilder out, String indent, String label) {
+            out.append(indent).append(label).append(index).append(": ").append(query)
+               .append(" (~").append(estimate).append(" students)\n");
+        }
+    }
+    
+    private class BitmapPlan extends Plan {
+        private final String index;
+        private final int estimate;
+        private final Supplier<CompressedBitmap> lookup;
+        private CompressedBitmap bitmap;
+        
+        BitmapPlan(StudentQuery query, String index, int estimate, Supplier<CompressedBitmap> lookup) {
+            super(query);
+            this.index = index;
+            this.estimate = estimate;
+            this.lookup = lookup;
+        }
+        
+        @Override
+        int estimate() {
+            return estimate;
+        }
+        
+        @Override
+        boolean hasBitmap() {
+            return true;
+        }
+        
+        @Override
+        CompressedBitmap bitmap() {
+            if (bitmap == null) {
+                bitmap = lookup.get();  // an age range ORs several buckets - do it once
+            }
+            return bitmap;
+        }
+        
+        @Override
+        int[] ids() {
+            return bitmap().toArray();
+        }
+        
+        @Override
+        void explain(StringBuilder out, String indent, String label) {
+            out.append(indent).append(label).append(index).append(": ").append(query)
+               .append(" (").append(estimate).append(" students)\n");
+        }
+    }
+    
+    private class AndPlan extends Plan {
+        private final Plan driver;
+        private final List<Plan> bitmaps;
+        private final List<Plan> intersected;
+        private final List<StudentQuery> filters;
+        
+        AndPlan(StudentQuery query, Plan driver, List<Plan> bitmaps, List<Plan> intersected,
+                List<StudentQuery> filters) {
+            super(query);
+            this.driver = driver;
+            this.bitmaps = bitmaps;
+            this.intersected = intersected;
+            this.filters = filters;
+        }
+        
+        @Override
+        int estimate() {
+            return driver.estimate();
+        }
+        
+        @Override
+        int[] ids() {
+            int[] ids;
+            int count;
+            if (driver.hasBitmap()) {
+                CompressedBitmap bits = driver.bitmap();
+                for (Plan part : bitmaps) {
+                    bits = CompressedBitmap.and(bits, part.bitmap());
+                }
+                ids = bits.toArray();
+                count = ids.length;
+            } else {
+                ids = driver.ids();
+                count = 0;
+                CompressedBitmap[] probed = new CompressedBitmap[bitmaps.size()];
+                for (int i = 0; i < probed.length; i++) {
+                    probed[i] = bitmaps.get(i).bitmap();
+                }
+                for (int id : ids) {
+                    boolean inAll = true;
+                    for (CompressedBitmap bits : probed) {
+                        if (!bits.contains(id)) {
+                            inAll = false;
+                            break;
+                        }
+                    }
+                    if (inAll) {
+                        ids[count++] = id;
+                    }
+                }
+            }
+            for (Plan part : intersected) {
+                if (count == 0) {
+                    break;
+                }
+                count = intersect(ids, count, part.ids());
+            }
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                Student student = idIndex.get(ids[i]);
+                boolean match = true;
+                for (StudentQuery filter : filters) {
+                    if (!filter.matches(student)) {
+                        match = false;
+                        break;
+                    }
+                }
+                if (match) {
+                    ids[kept++] = ids[i];
+                }
+            }
+            return Arrays.copyOf(ids, kept);
+        }
+        
+        @Override
+        void explain(StringBuilder out, String indent, String label) {
+            out.append(indent).append(label).append("AND (~").append(estimate()).append(" students)\n");
+            driver.explain(out, indent + "  ", "start with ");
+            String bitmapStep = driver.hasBitmap() ? "bitmap AND " : "probe ";
+            for (Plan part : bitmaps) {
+                part.explain(out, indent + "  ", bitmapStep);
+            }
+            for (Plan part : intersected) {
+                part.explain(out, indent + "  ", "intersect ");
+            }
+            for (StudentQuery filter : filters) {
+                out.append(indent).append("  check each candidate: ").append(filter).append('\n');
+            }
+        }
+    }
+    
+    private class OrPlan extends Plan {
+        private final List<Plan> parts;
+        private CompressedBitmap bitmap;  // the union, built once
+        
+        OrPlan(StudentQuery query, List<Plan> parts) {
+            super(query);
+            this.parts = parts;
+        }
+        
+        @Override
+        int estimate() {
+            long sum = 0;
+            for (Plan part : parts) {
+                sum += part.estimate();
+            }
+            return (int) Math.min(sum, students.size());
+        }
+        
+        @Override
+        boolean hasBitmap() {
+            for (Plan part : parts) {
+                if (!part.hasBitmap()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        @Override
+        CompressedBitmap bitmap() {
+            if (bitmap == null && hasBitmap()) {
+                CompressedBitmap bits = new CompressedBitmap();
+                for (Plan part : parts) {
+                    bits = CompressedBitmap.or(bits, part.bitmap());
+                }
+                bitmap = bits;
+            }
+            return bitmap;
+        }
+        
+        @Override
+        int[] ids() {
+            if (hasBitmap()) {
+                return bitmap().toArray();
+            }
+            int[] ids = new int[0];
+            for (Plan part : parts) {
+                ids = union(ids, part.ids());
+            }
+            return ids;
+        }
+        
+        @Override
+        void explain(StringBuilder out, String indent, String label) {
+            out.append(indent).append(label).append("OR (~").append(estimate()).append(" students)\n");
+            for (Plan part : parts) {
+                part.explain(out, indent + "  ", "union ");
+            }
+        }
+    }
+    
+    private class ScanPlan extends Plan {
+        
+        ScanPlan(StudentQuery query) {
+            super(query);
+        }
+        
+        @Override
+        int estimate() {
+            return students.size();
+        }
+        
+        @Override
+        int[] ids() {
+            int[] ids = new int[16];
+            int count = 0;
+            for (Student student : students) {
+                if (query.matches(student) && idIndex.get(student.getId()) == student) {
+                    if (count == ids.length) {
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    ids[count++] = student.getId();
+                }
+            }
+            ids = Arrays.copyOf(ids, count);
+            Arrays.sort(ids);
+            return ids;
+        }
+        
+        @Override
+        void explain(StringBuilder out, String indent, String label) {
+            out.append(indent).append(label).append("full scan of ").append(students.size())
+               .append(" students (no index for ").append(query).append(")\n");
+        }
+    }
+    
+    /**
+     * Keeps the IDs of a sorted array that are also in another sorted array
+     * @return number of IDs kept (moved to the front of 'ids')
+     */
+    private static int intersect(int[] ids, int count, int[] other) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < other.length; i++) {
+            while (j < other.length && other[j] < ids[i]) {
+                j++;
+            }
+            if (j < other.length && other[j] == ids[i]) {
+                ids[kept++] = ids[i];
+            }
+        }
+        return kept;
+    }
+    
+    /**
+     * Merges two sorted ID arrays without duplicates
+     */
+    private static int[] union(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                next = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            merged[count++] = next;
+        }
+        return Arrays.copyOf(merged, count);
+    }
+}
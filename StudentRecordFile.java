@@ -0,0 +1,567 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * StudentRecordFile stores students in a binary file with random access by ID
+ * Unlike the CSV file, a single student can be read, overwritten or deleted
+ * without reading or rewriting the rest of the file.
+ *
+ * Data file (students.dat):
+ *   header: int magic "STDB" | short version | short header size | long reserved
+ *   slots:  int slot length | byte status (1 = live, 0 = deleted, 2 = grade) | int id | short age
+ *           | short grade code | short length + UTF-8 name | short length + UTF-8 email
+ *           | zero padding | int CRC32 of everything after the status byte
+ * Slots get some spare room, so most updates fit in place. An update that does
+ * not fit marks the old slot deleted and appends a new one. A slot whose
+ * checksum does not match (e.g. an overwrite torn by a crash) is skipped with a
+ * warning instead of being read as a wrong student. Deleting only changes the
+ * status byte, which is why the checksum leaves it out.
+ *
+ * Writes reach the disk as the sync policy says: the owner calls syncIfDue()
+ * after each change (or batch of changes), like StudentJournal does.
+ *
+ * Grades are not stored as text in every slot. The file has its own grade table
+ * (code 0, 1, 2, ... in the order the file first saw them) and student slots hold
+ * the code. Each table entry is a grade slot, appended before the first student
+ * that uses it: the id field holds the code, followed by short length + UTF-8 grade.
+ *
+ * Index file (students.idx) - the ID -> slot offset map and the grade table, saved on close():
+ *   int magic "STDX" | long data file length | int count | count x (int id, long offset)
+ *   | int grade count | grade count x modified UTF-8 grade
+ * The first change after opening deletes the saved index, so it only exists while it
+ * matches the data file. A missing or mismatching index is rebuilt by scanning the slots.
+ */
+class StudentRecordFile implements Closeable {
+    private static final int DATA_MAGIC = 0x53544442;   // "STDB"
+    private static final int INDEX_MAGIC = 0x53544458;  // "STDX"
+    private static final short VERSION = 2;
+    private static final short HEADER_SIZE = 16;
+    private static final int SLOT_HEADER_SIZE = 11;     // length + status + id + age
+    private static final int SLOT_ALIGNMENT = 8;
+    private static final int CRC_SIZE = 4;              // checksum at the end of every slot
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 0;
+    private static final byte GRADE = 2;
+    private static final int NO_GRADE = 0xFFFF;         // grade code of a student without a grade
+    
+    private final Path dataPath;
+    private final Path indexPath;
+    private final FileChannel channel;
+    private final StudentJournal.SyncPolicy syncPolicy;
+    private final int syncInterval;  // used only by SyncPolicy.PERIODIC
+    private int unsyncedChanges;     // writes and deletes since the last fsync
+    private final List<Long> damagedSlots = new ArrayList<>();  // offsets the last scan skipped
+    private final IntLongHashMap offsets = new IntLongHashMap();  // ID -> slot offset
+    private int[] fileToGlobal = new int[16];  // file grade code -> GradeDictionary code
+    private int[] globalToFile = new int[16];  // GradeDictionary code -> file grade code + 1 (0 = none)
+    private int gradeCount;
+    private long fileEnd;          // where the next new slot is appended
+    private boolean indexDirty;    // the index file no longer matches the data file
+    
+    /**
+     * Opens (or creates) a record file and loads or rebuilds its index
+     * @param dataFileName - data file, e.g. students.dat
+     * @param indexFileName - index file, e.g. students.idx
+     * @param syncPolicy - when syncIfDue() forces written records to the disk
+     * @param syncInterval - changes between fsyncs for SyncPolicy.PERIODIC
+     */
+    public StudentRecordFile(String dataFileName, String indexFileName,
+                             StudentJournal.SyncPolicy syncPolicy, int syncInterval) throws IOException {
+        dataPath = Paths.get(dataFileName);
+        indexPath = Paths.get(indexFileName);
+        this.syncPolicy = syncPolicy;
+        this.syncInterval = Math.max(1, syncInterval);
+        channel = FileChannel.open(dataPath, StandardOpenOption.CREATE,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                writeHeader();
+            } else {
+                checkHeader();
+            }
+            fileEnd = channel.size();
+            if (!loadIndex()) {
+                rebuildIndex();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Reads one student
+     * @param id - student ID
+     * @return the student, or null if there is no student with this ID
+     * @throws IOException if the record is damaged (its checksum does not match)
+     */
+    public Student read(int id) throws IOException {
+        long offset = offsets.get(id, -1);
+        if (offset < 0) {
+            return null;
+        }
+        ByteBuffer lengthBuffer = readFully(offset, 4);
+        ByteBuffer slot = readFully(offset, lengthBuffer.getInt(0));
+        if (!isIntact(slot)) {
+            throw new IOException("The record of student ID " + id + " in " + dataPath + " is damaged");
+        }
+        return decode(slot);
+    }
+    
+    /**
+     * Writes a student - overwrites the existing record in place when it fits
+     * @param student - student to add or update
+     */
+    public void write(Student student) throws IOException {
+        markIndexDirty();
+        unsyncedChanges++;
+        byte[] name = student.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] email = student.getEmail().getBytes(StandardCharsets.UTF_8);
+        int gradeCode = fileGradeCode(student.getGradeCode());  // may append a grade slot
+        int needed = SLOT_HEADER_SIZE + 6 + name.length + email.length + CRC_SIZE;
+        
+        long offset = offsets.get(student.getId(), -1);
+        int slotLength;
+        if (offset >= 0 && (slotLength = readFully(offset, 4).getInt(0)) >= needed) {
+            writeFully(offset, encode(student, slotLength, gradeCode, name, email));
+            return;
+        }
+        // new slot first, then retire the outgrown one - after a crash in between
+        // both are live and the rebuilt index picks the later one
+        slotLength = roundUp(needed + Math.max(SLOT_ALIGNMENT, needed / 4));  // 25% spare room
+        long newOffset = fileEnd;
+        writeFully(newOffset, encode(student, slotLength, gradeCode, name, email));
+        fileEnd += slotLength;
+        if (offset >= 0) {
+            writeFully(offset + 4, ByteBuffer.wrap(new byte[] { DELETED }));
+        }
+        offsets.put(student.getId(), newOffset);
+    }
+    
+    /**
+     * Deletes a student (marks the slot as deleted)
+     * @param id - student ID
+     * @return true if the student existed
+     */
+    public boolean delete(int id) throws IOException {
+        long offset = offsets.get(id, -1);
+        if (offset < 0) {
+            return false;
+        }
+        markIndexDirty();
+        unsyncedChanges++;
+        writeFully(offset + 4, ByteBuffer.wrap(new byte[] { DELETED }));
+        offsets.remove(id);
+        return true;
+    }
+    
+    /**
+     * @return true if a student with this ID is stored
+     */
+    public boolean contains(int id) {
+        return offsets.containsKey(id);
+    }
+    
+    /**
+     * @return number of stored students
+     */
+    public int size() {
+        return offsets.size();
+    }
+    
+    /**
+     * Reads every live student in file order (one sequential pass over the file)
+     * Damaged records are skipped with a warning and marked deleted, so they are
+     * reported once; if the saved index pointed at one of them, the index is
+     * rebuilt so an older intact copy (if any) is used.
+     */
+    public List<Student> readAll() throws IOException {
+        List<Student> students = readLive();
+        if (!damagedSlots.isEmpty()) {
+            System.out.println("⚠️  Skipped " + damagedSlots.size() + " damaged records in " + dataPath + ".");
+            markIndexDirty();
+            for (long offset : damagedSlots) {
+                writeFully(offset + 4, ByteBuffer.wrap(new byte[] { DELETED }));
+            }
+            if (students.size() < offsets.size()) {
+                rebuildIndex();
+                students = readLive();
+            }
+        }
+        return students;
+    }
+    
+    private List<Student> readLive() throws IOException {
+        List<Student> students = new ArrayList<>(offsets.size());
+        scanSlots((offset, slot) -> {
+            if (slot.get(4) == LIVE && offsets.get(slot.getInt(5), -1) == offset) {
+                students.add(decode(slot));
+            }
+        });
+        return students;
+    }
+    
+    /**
+     * Forces the changes written so far to the disk if the sync policy says so
+     * (after every change, or after every syncInterval changes)
+     */
+    public void syncIfDue() throws IOException {
+        if (syncPolicy == StudentJournal.SyncPolicy.ALWAYS
+                || (syncPolicy == StudentJournal.SyncPolicy.PERIODIC && unsyncedChanges >= syncInterval)) {
+            sync();
+        }
+    }
+    
+    /**
+     * Forces written records to the disk, whatever the sync policy is
+     */
+    public void sync() throws IOException {
+        if (unsyncedChanges > 0) {
+            channel.force(false);
+            unsyncedChanges = 0;
+        }
+    }
+    
+    /**
+     * Saves the index and closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (indexDirty || !Files.exists(indexPath)) {
+                channel.force(false);
+                saveIndex();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+    
+    
+    private static ByteBuffer encode(Student student, int slotLength, int gradeCode,
+                                     byte[] name, byte[] email) {
+        ByteBuffer slot = ByteBuffer.allocate(slotLength);
+        slot.putInt(slotLength);
+        slot.put(LIVE);
+        slot.putInt(student.getId());
+        slot.putShort((short) student.getAge());
+        slot.putShort((short) gradeCode);
+        putField(slot, name);
+        putField(slot, email);
+        seal(slot);
+        slot.clear();  // the whole slot (with zero padding) is written
+        return slot;
+    }
+    
+    /**
+     * Puts the checksum into the last bytes of a slot
+     */
+    private static void seal(ByteBuffer slot) {
+        int length = slot.capacity();
+        slot.putInt(length - CRC_SIZE, checksum(slot, length));
+    }
+    
+    /**
+     * @return true if the checksum at the end of the slot matches its contents
+     */
+    private static boolean isIntact(ByteBuffer slot) {
+        int length = slot.limit();
+        return length >= SLOT_HEADER_SIZE + CRC_SIZE
+               && slot.getInt(length - CRC_SIZE) == checksum(slot, length);
+    }
+    
+    private static int checksum(ByteBuffer slot, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(slot.array(), slot.arrayOffset() + 5, length - 5 - CRC_SIZE);
+        return (int) crc.getValue();
+    }
+    
+    private static void putField(ByteBuffer slot, byte[] field) {
+        if (field.length > 0xFFFF) {
+            throw new IllegalArgumentException("Field too long for the record file: " + field.length);
+        }
+        slot.putShort((short) field.length);
+        slot.put(field);
+    }
+    
+    private Student decode(ByteBuffer slot) {
+        slot.position(5);
+        int id = slot.getInt();
+        int age = slot.getShort();
+        int gradeCode = slot.getShort() & 0xFFFF;
+        String name = getField(slot);
+        String email = getField(slot);
+        return new Student(id, name, age, globalGradeCode(gradeCode), email);
+    }
+    
+    /**
+     * Gets the file's code for a grade, adding the grade to the file's table if it is new
+     * @param globalCode - code from GradeDictionary
+     */
+    private int fileGradeCode(int globalCode) throws IOException {
+        if (globalCode == GradeDictionary.NO_GRADE) {
+            return NO_GRADE;
+        }
+        if (globalCode < globalToFile.length && globalToFile[globalCode] > 0) {
+            return globalToFile[globalCode] - 1;
+        }
+        if (gradeCount == NO_GRADE) {
+            throw new IOException("Too many different grades for " + dataPath);
+        }
+        byte[] grade = GradeDictionary.grade(globalCode).getBytes(StandardCharsets.UTF_8);
+        int slotLength = roundUp(SLOT_HEADER_SIZE + 2 + grade.length + CRC_SIZE);
+        ByteBuffer slot = ByteBuffer.allocate(slotLength);
+        slot.putInt(slotLength);
+        slot.put(GRADE);
+        slot.putInt(gradeCount);
+        slot.putShort((short) 0);
+        putField(slot, grade);
+        seal(slot);
+        slot.clear();
+        writeFully(fileEnd, slot);
+        fileEnd += slotLength;
+        return addGrade(gradeCount, globalCode);
+    }
+    
+    private int globalGradeCode(int fileCode) {
+        if (fileCode == NO_GRADE) {
+            return GradeDictionary.NO_GRADE;
+        }
+        if (fileCode >= gradeCount) {
+            throw new IllegalStateException(dataPath + " uses unknown grade code " + fileCode);
+        }
+        return fileToGlobal[fileCode];
+    }
+    
+    private int addGrade(int fileCode, int globalCode) {
+        if (fileCode >= fileToGlobal.length) {
+            fileToGlobal = Arrays.copyOf(fileToGlobal, Math.max(fileCode + 1, fileToGlobal.length * 2));
+        }
+        if (globalCode >= globalToFile.length) {
+            globalToFile = Arrays.copyOf(globalToFile, Math.max(globalCode + 1, globalToFile.length * 2));
+        }
+        fileToGlobal[fileCode] = globalCode;
+        globalToFile[globalCode] = fileCode + 1;
+        gradeCount = Math.max(gradeCount, fileCode + 1);
+        return fileCode;
+    }
+    
+    private void clearGrades() {
+        Arrays.fill(globalToFile, 0);
+        gradeCount = 0;
+    }
+    
+    private static String getField(ByteBuffer slot) {
+        int length = slot.getShort() & 0xFFFF;
+        String value = new String(slot.array(), slot.arrayOffset() + slot.position(), length,
+                                  StandardCharsets.UTF_8);
+        slot.position(slot.position() + length);
+        return value;
+    }
+    
+    private static int roundUp(int length) {
+        return (length + SLOT_ALIGNMENT - 1) / SLOT_ALIGNMENT * SLOT_ALIGNMENT;
+    }
+    
+    
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(DATA_MAGIC).putShort(VERSION).putShort(HEADER_SIZE).putLong(0);
+        header.flip();
+        writeFully(0, header);
+    }
+    
+    private void checkHeader() throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            throw new IOException(dataPath + " is not a student record file (too short)");
+        }
+        ByteBuffer header = readFully(0, HEADER_SIZE);
+        if (header.getInt(0) != DATA_MAGIC) {
+            throw new IOException(dataPath + " is not a student record file");
+        }
+        if (header.getShort(4) != VERSION) {
+            throw new IOException(dataPath + " has unsupported version " + header.getShort(4));
+        }
+    }
+    
+    /**
+     * Loads the saved index if it belongs to the current data file
+     * @return false if the index must be rebuilt
+     */
+    private boolean loadIndex() throws IOException {
+        if (!Files.exists(indexPath)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(indexPath), 1 << 16))) {
+            if (in.readInt() != INDEX_MAGIC || in.readLong() != fileEnd) {
+                return false;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                offsets.put(in.readInt(), in.readLong());
+            }
+            int grades = in.readInt();
+            for (int i = 0; i < grades; i++) {
+                addGrade(i, GradeDictionary.code(in.readUTF()));
+            }
+            return true;
+        } catch (EOFException e) {
+            offsets.clear();
+            clearGrades();
+            return false;  // truncated index
+        }
+    }
+    
+    /**
+     * Rebuilds the index from the data file. A slot whose write was cut short by a
+     * crash (past the end of the file) ends the scan and is cut off.
+     */
+    private void rebuildIndex() throws IOException {
+        offsets.clear();
+        clearGrades();
+        long validEnd = scanSlots((offset, slot) -> {
+            if (slot.get(4) == LIVE) {
+                offsets.put(slot.getInt(5), offset);  // later slots win
+            } else if (slot.get(4) == GRADE) {
+                slot.position(SLOT_HEADER_SIZE);
+                addGrade(slot.getInt(5), GradeDictionary.code(getField(slot)));
+            }
+        });
+        if (validEnd < fileEnd) {
+            channel.truncate(validEnd);
+            fileEnd = validEnd;
+        }
+        indexDirty = true;
+    }
+    
+    private void saveIndex() throws IOException {
+        Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(tempPath), 1 << 16))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeLong(fileEnd);
+            out.writeInt(offsets.size());
+            IOException[] failure = { null };
+            offsets.forEach((id, offset) -> {
+                try {
+                    out.writeInt(id);
+                    out.writeLong(offset);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            out.writeInt(gradeCount);
+            for (int i = 0; i < gradeCount; i++) {
+                out.writeUTF(GradeDictionary.grade(fileToGlobal[i]));
+            }
+        }
+        Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        indexDirty = false;
+    }
+    
+    /**
+     * The first change after opening invalidates the saved index, so a crash
+     * before close() makes the next open rebuild it instead of trusting stale offsets
+     */
+    private void markIndexDirty() throws IOException {
+        if (!indexDirty) {
+            Files.deleteIfExists(indexPath);
+            indexDirty = true;
+        }
+    }
+    
+    // ---- low level I/O ----
+    
+    private interface SlotVisitor {
+        void visit(long offset, ByteBuffer slot);
+    }
+    
+    /**
+     * Reads all slots in file order; slots with a wrong checksum are listed in
+     * damagedSlots instead of being visited
+     * @return offset just after the last complete slot
+     */
+    private long scanSlots(SlotVisitor visitor) throws IOException {
+        damagedSlots.clear();
+        long offset = HEADER_SIZE;
+        channel.position(offset);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(new UnclosableChannel(channel)), 1 << 16))) {
+            byte[] buffer = new byte[256];
+            while (offset + 4 <= fileEnd) {
+                int slotLength = in.readInt();
+                if (slotLength < SLOT_HEADER_SIZE || offset + slotLength > fileEnd) {
+                    break;  // torn or damaged slot
+                }
+                if (buffer.length < slotLength) {
+                    buffer = new byte[Math.max(slotLength, buffer.length * 2)];
+                }
+                ByteBuffer.wrap(buffer).putInt(slotLength);
+                in.readFully(buffer, 4, slotLength - 4);
+                ByteBuffer slot = ByteBuffer.wrap(buffer, 0, slotLength).slice();
+                if (isIntact(slot)) {
+                    visitor.visit(offset, slot);
+                } else if (slot.get(4) != DELETED) {
+                    damagedSlots.add(offset);
+                }
+                offset += slotLength;
+            }
+        }
+        return offset;
+    }
+    
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of " + dataPath);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+    
+    private void writeFully(long position, ByteBuffer buffer) throws IOException {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, start + buffer.position());
+        }
+    }
+    
+    /**
+     * Lets a stream read from the shared channel without closing it afterwards
+     */
+    private static class UnclosableChannel implements java.nio.channels.ReadableByteChannel {
+        private final FileChannel channel;
+        
+        UnclosableChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+        
+        @Override
+        public int read(ByteBuffer target) throws IOException {
+            return channel.read(target);
+        }
+        
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+        
+        @Override
+        public void close() {
+            // the record file closes the channel itself
+        }
+    }
+}
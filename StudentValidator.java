@@ -0,0 +1,57 @@
+/**
+ * StudentValidator checks student details that come from outside the program
+ * (HTTP requests, batch files). The rules are the same as in the interactive
+ * menu; commas and line breaks are also refused because the data files store
+ * students as plain CSV lines.
+ *
+ * Every method returns the cleaned-up value or throws IllegalArgumentException
+ * with a message that can be shown to the user.
+ */
+class StudentValidator {
+    
+    /**
+     * Checks all details of a new student
+     * @return a student with trimmed details
+     */
+    public static Student student(Student student) {
+        return new Student(student.getId(), name(student.getName()), age(student.getAge()),
+                           grade(student.getGrade()), email(student.getEmail()));
+    }
+    
+    public static String name(String name) {
+        return text(name, "Name cannot be empty");
+    }
+    
+    public static int age(int age) {
+        if (age < 1 || age > 150) {
+            throw new IllegalArgumentException("Please enter a valid age (1-150)");
+        }
+        return age;
+    }
+    
+    public static String grade(String grade) {
+        return text(grade, "Grade cannot be empty");
+    }
+    
+    public static String email(String email) {
+        email = email == null ? "" : email.trim();
+        if (!email.contains("@")) {
+            throw new IllegalArgumentException("Please enter a valid email address");
+        }
+        return text(email, "Please enter a valid email address");
+    }
+    
+    private static String text(String text, String emptyMessage) {
+        text = text == null ? "" : text.trim();  // missing counts as empty
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException(emptyMessage);
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '\n' || c == '\r') {
+                throw new IllegalArgumentException("Commas and line breaks are not allowed: " + text);
+            }
+        }
+        return text;
+    }
+}
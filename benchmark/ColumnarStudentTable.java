@@ -0,0 +1,460 @@
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * ColumnarStudentTable stores students column by column instead of as objects
+ * Every detail lives in its own primitive array (struct of arrays):
+ *   ids[row], ages[row]          - the numbers
+ *   gradeCodes[row]              - the grade's GradeDictionary code
+ *   domainCodes[row]             - index into a small dictionary of email domains ("@gmail.com")
+ *   text[textStart[row] ...]     - name and email user name as UTF-8 bytes, back to back
+ * A student costs about 26 bytes plus the text bytes, instead of five objects
+ * (Student plus four Strings with their byte arrays) and a map entry. Scans
+ * such as findByName walk through a few flat arrays rather than chasing
+ * pointers all over the heap.
+ *
+ * Student objects are only created when a row is read (get, studentAt and the
+ * find methods return copies - change a student with update()). Deleting moves
+ * the last row into the freed row, so row numbers are not stable. Not thread-safe.
+ */
+class ColumnarStudentTable {
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_NAME_LENGTH = 0x7FFF;   // name length is stored in 15 bits...
+    private static final int NON_ASCII_NAME = 0x8000;    // ...plus a flag for names with non-ASCII letters
+    private static final int MAX_EMAIL_LENGTH = 0xFFFF;
+    
+    private int size;
+    private int[] ids;
+    private short[] ages;
+    private short[] gradeCodes;
+    private short[] domainCodes;
+    private int[] textStart;
+    private short[] nameLength;   // length | NON_ASCII_NAME
+    private short[] emailLength;  // unsigned (& 0xFFFF), user name part only
+    
+    private byte[] text = new byte[1024];
+    private int textEnd;          // bytes of 'text' in use
+    private int textGarbage;      // bytes of old names/emails nobody points to any more
+    
+    private final Dictionary domains = new Dictionary();
+    
+    private int[] slots;          // open-addressing ID index: row + 1, 0 = empty
+    private int slotMask;
+    
+    /**
+     * Constructor - creates an empty table
+     */
+    public ColumnarStudentTable() {
+        this(MIN_CAPACITY);
+    }
+    
+    /**
+     * Constructor - creates a table that holds the expected number of students without growing
+     * @param expectedSize - number of students expected
+     */
+    public ColumnarStudentTable(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, expectedSize);
+        ids = new int[capacity];
+        ages = new short[capacity];
+        gradeCodes = new short[capacity];
+        domainCodes = new short[capacity];
+        textStart = new int[capacity];
+        nameLength = new short[capacity];
+        emailLength = new short[capacity];
+        allocateSlots(capacity);
+    }
+    
+    /**
+     * Adds a student
+     * @return false if a student with this ID is already in the table
+     */
+    public boolean add(Student student) {
+        if (findRow(student.getId()) >= 0) {
+            return false;
+        }
+        if (size == ids.length) {
+            growRows();
+        }
+        int row = size;
+        ids[row] = student.getId();
+        setDetails(row, student);
+        size++;
+        insertSlot(row);
+        return true;
+    }
+    
+    /**
+     * Replaces the details of the student with the same ID
+     * @return false if there is no student with this ID
+     */
+    public boolean update(Student student) {
+        int row = findRow(student.getId());
+        if (row < 0) {
+            return false;
+        }
+        int oldTextLength = textLength(row);
+        setDetails(row, student);
+        textGarbage += oldTextLength;  // after setDetails, which may compact the text
+        return true;
+    }
+    
+    /**
+     * Deletes a student
+     * @return false if there is no student with this ID
+     */
+    public boolean remove(int id) {
+        int row = findRow(id);
+        if (row < 0) {
+            return false;
+        }
+        removeSlot(id);
+        textGarbage += textLength(row);
+        int last = --size;
+        if (row != last) {  // move the last row into the hole
+            ids[row] = ids[last];
+            ages[row] = ages[last];
+            gradeCodes[row] = gradeCodes[last];
+            domainCodes[row] = domainCodes[last];
+            textStart[row] = textStart[last];
+            nameLength[row] = nameLength[last];
+            emailLength[row] = emailLength[last];
+            slots[slotOf(ids[row])] = row + 1;
+        }
+        return true;
+    }
+    
+    /**
+     * Finds a student by ID
+     * @return a new Student with the stored details, or null if not found
+     */
+    public Student get(int id) {
+        int row = findRow(id);
+        return row < 0 ? null : studentAt(row);
+    }
+    
+    /**
+     * @return true if a student with this ID is in the table
+     */
+    public boolean contains(int id) {
+        return findRow(id) >= 0;
+    }
+    
+    /**
+     * @return number of students
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Creates a Student for one row
+     * @param row - 0 to size() - 1
+     */
+    public Student studentAt(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        int nameStart = textStart[row];
+        int nameBytes = nameLength[row] & MAX_NAME_LENGTH;
+        String user = new String(text, nameStart + nameBytes, emailLength[row] & 0xFFFF,
+                                 StandardCharsets.UTF_8);
+        return new Student(ids[row],
+                           new String(text, nameStart, nameBytes, StandardCharsets.UTF_8),
+                           ages[row],
+                           (int) gradeCodes[row],
+                           user.concat(domains.get(domainCodes[row])));
+    }
+    
+    /**
+     * @return ID stored in a row (no Student is created)
+     */
+    public int idAt(int row) {
+        return ids[row];
+    }
+    
+    /**
+     * @return age stored in a row (no Student is created)
+     */
+    public int ageAt(int row) {
+        return ages[row];
+    }
+    
+    /**
+     * Finds students by name (partial match, case-insensitive) with a scan of the name bytes
+     * @param query - text to look for
+     * @return matching students, in row order
+     */
+    public List<Student> findByName(String query) {
+        String lowerQuery = query.toLowerCase();
+        byte[] needle = lowerQuery.getBytes(StandardCharsets.UTF_8);
+        boolean asciiQuery = needle.length == lowerQuery.length();
+        List<Student> found = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            int start = textStart[row];
+            int end = start + (nameLength[row] & MAX_NAME_LENGTH);
+            boolean match = asciiQuery && (nameLength[row] & NON_ASCII_NAME) == 0
+                          ? containsAsciiIgnoreCase(start, end, needle)
+                          : decodeLower(start, end).contains(lowerQuery);
+            if (match) {
+                found.add(studentAt(row));
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Finds students with exactly this grade (compares dictionary codes, not strings)
+     * @return matching students, in row order
+     */
+    public List<Student> findByGrade(String grade) {
+        List<Student> found = new ArrayList<>();
+        int code = GradeDictionary.find(grade);
+        if (code == GradeDictionary.NO_GRADE) {
+            return found;
+        }
+        short wanted = (short) code;
+        for (int row = 0; row < size; row++) {
+            if (gradeCodes[row] == wanted) {
+                found.add(studentAt(row));
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * @return approximate heap used by the table's arrays, in bytes
+     */
+    public long memoryBytes() {
+        long rows = ids.length;
+        return rows * (4 + 2 + 2 + 2 + 4 + 2 + 2) + (long) slots.length * 4 + text.length;
+    }
+    
+    /**
+     * Releases the spare room kept for future students (call after a bulk load)
+     */
+    public void trimToSize() {
+        if (textGarbage > 0) {
+            compactText();
+        }
+        text = Arrays.copyOf(text, textEnd);
+        resizeRows(Math.max(MIN_CAPACITY, size));
+    }
+    
+    private void setDetails(int row, Student student) {
+        String email = student.getEmail();
+        int at = email.lastIndexOf('@');
+        String domain = at < 0 ? "" : email.substring(at);
+        byte[] name = student.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] user = email.substring(0, email.length() - domain.length()).getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_LENGTH || user.length > MAX_EMAIL_LENGTH) {
+            throw new IllegalArgumentException("Name or email of student " + student.getId() + " is too long");
+        }
+        if (student.getGradeCode() > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many different grades: " + student.getGrade());
+        }
+        ages[row] = (short) student.getAge();
+        gradeCodes[row] = (short) student.getGradeCode();
+        domainCodes[row] = domains.code(domain);
+        textStart[row] = appendText(name, user);
+        nameLength[row] = (short) (name.length | (isAscii(name) ? 0 : NON_ASCII_NAME));
+        emailLength[row] = (short) user.length;
+    }
+    
+    private int textLength(int row) {
+        return (nameLength[row] & MAX_NAME_LENGTH) + (emailLength[row] & 0xFFFF);
+    }
+    
+    private static boolean isAscii(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Appends name and email to the text array
+     * @return offset of the name
+     */
+    private int appendText(byte[] name, byte[] email) {
+        int needed = name.length + email.length;
+        if (textEnd + needed > text.length) {
+            if (textGarbage > textEnd / 2) {
+                compactText();
+            }
+            if (textEnd + needed > text.length) {
+                long capacity = Math.max((long) textEnd + needed, (long) text.length * 2);
+                if (capacity > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Text column is full (2 GB)");
+                }
+                text = Arrays.copyOf(text, (int) capacity);
+            }
+        }
+        int start = textEnd;
+        System.arraycopy(name, 0, text, start, name.length);
+        System.arraycopy(email, 0, text, start + name.length, email.length);
+        textEnd += needed;
+        return start;
+    }
+    
+    /**
+     * Drops the bytes of replaced and deleted names/emails
+     */
+    private void compactText() {
+        long live = 0;
+        for (int row = 0; row < size; row++) {
+            live += textLength(row);
+        }
+        byte[] compacted = new byte[(int) Math.max(1024, live)];
+        int end = 0;
+        for (int row = 0; row < size; row++) {
+            int length = textLength(row);
+            System.arraycopy(text, textStart[row], compacted, end, length);
+            textStart[row] = end;
+            end += length;
+        }
+        text = compacted;
+        textEnd = end;
+        textGarbage = 0;
+    }
+    
+    /**
+     * Case-insensitive substring test on an ASCII name
+     * @param needle - lower-case ASCII bytes to look for
+     */
+    private boolean containsAsciiIgnoreCase(int start, int end, byte[] needle) {
+        if (needle.length == 0) {
+            return true;
+        }
+        byte first = needle[0];
+        int last = end - needle.length;
+        for (int i = start; i <= last; i++) {
+            if (toLower(text[i]) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < needle.length && toLower(text[i + j]) == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static byte toLower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+    
+    private String decodeLower(int start, int end) {
+        return new String(text, start, end - start, StandardCharsets.UTF_8).toLowerCase();
+    }
+    
+    private void growRows() {
+        resizeRows(ids.length * 2);
+    }
+    
+    private void resizeRows(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        gradeCodes = Arrays.copyOf(gradeCodes, capacity);
+        domainCodes = Arrays.copyOf(domainCodes, capacity);
+        textStart = Arrays.copyOf(textStart, capacity);
+        nameLength = Arrays.copyOf(nameLength, capacity);
+        emailLength = Arrays.copyOf(emailLength, capacity);
+        allocateSlots(capacity);
+        for (int row = 0; row < size; row++) {
+            insertSlot(row);
+        }
+    }
+    
+    // ID index: the slots hold row numbers and the IDs are read from the ids column,
+    // so the index costs one int per slot (see IntObjectHashMap for the probing scheme)
+    
+    private void allocateSlots(int rowCapacity) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < rowCapacity + rowCapacity / 3) {  // at most 75% full
+            capacity <<= 1;
+        }
+        slots = new int[capacity];
+        slotMask = capacity - 1;
+    }
+    
+    private int findRow(int id) {
+        for (int slot = hash(id) & slotMask; slots[slot] != 0; slot = (slot + 1) & slotMask) {
+            if (ids[slots[slot] - 1] == id) {
+                return slots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+    
+    private int slotOf(int id) {
+        int slot = hash(id) & slotMask;
+        while (ids[slots[slot] - 1] != id) {
+            slot = (slot + 1) & slotMask;
+        }
+        return slot;
+    }
+    
+    private void insertSlot(int row) {
+        int slot = hash(ids[row]) & slotMask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & slotMask;
+        }
+        slots[slot] = row + 1;
+    }
+    
+    private void removeSlot(int id) {
+        int free = slotOf(id);
+        slots[free] = 0;
+        for (int slot = (free + 1) & slotMask; slots[slot] != 0; slot = (slot + 1) & slotMask) {
+            int home = hash(ids[slots[slot] - 1]) & slotMask;
+            boolean homeInRange = free <= slot
+                    ? free < home && home <= slot
+                    : free < home || home <= slot;
+            if (!homeInRange) {
+                slots[free] = slots[slot];
+                slots[slot] = 0;
+                free = slot;
+            }
+        }
+    }
+    
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;  // golden ratio multiplier (Fibonacci hashing)
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * Small dictionary that gives every distinct value a 16-bit code
+     */
+    private static class Dictionary {
+        private final List<String> values = new ArrayList<>();        // code -> value
+        private final Map<String, Integer> codes = new HashMap<>();   // value -> code
+        
+        short code(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                if (values.size() > Short.MAX_VALUE) {
+                    throw new IllegalStateException("Too many different values: " + value);
+                }
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code.shortValue();
+        }
+        
+        int find(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+        
+        String get(int code) {
+            return values.get(code);
+        }
+    }
+}
@@ -0,0 +1,1304 @@
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * StudentBenchmark measures the performance-sensitive parts of the system
+ * Run with: java StudentBenchmark <benchmark> [rows]
+ *   suite      - StudentManager load, save, lookup and search plus CSV conversion,
+ *                for each size in a comma-separated list (default 1000,100000,1000000)
+ *   parse      - CSV line parsing: time and heap allocation per row
+ *   load       - loading students.csv: old line-by-line reader vs. ParallelCsvLoader
+ *   bulk       - adding students one by one vs. StudentManager.addAll (with given and
+ *                with new IDs), per storage mode
+ *   delete     - deleting students one by one: StudentManager (tombstones) vs. ArrayList.remove
+ *   columnar   - heap per student and name/grade scans: Student objects vs. ColumnarStudentTable
+ *   fuzzy      - misspelled name search: FuzzyNameIndex vs. edit distance to every name
+ *   autocomplete - type-ahead name suggestions: NameAutocomplete trie vs. scanning every name
+ *   bloom      - new-ID checks: IdBloomFilter false positive rate, memory and speed vs. the ID index
+ *   concurrent - StudentManager throughput with 1 to 32 threads (90% reads, 10% updates)
+ *   stress     - many threads adding, updating, deleting and searching at once,
+ *                then checks that the students, indexes and data files still agree
+ *                (once per storage mode)
+ *   planner    - checks StudentManager.query against StudentQuery.matches on every student
+ *                for 3000 random queries, with changes between them (default 20000 students)
+ *   list       - checks StudentList against an ArrayList doing the same random adds, removes
+ *                and vacuums, with many students sharing an ID (default 1000000 operations)
+ *   sequence   - checks StudentIdSequence: no ID handed out twice by 8 threads, a reopened
+ *                sequence continues after them, typed IDs from 2^30 on are skipped
+ */
+public class StudentBenchmark {
+    private static final long SEED = 42;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final long MIN_PHASE_NANOS = 1_000_000_000L;  // small datasets run more rounds
+    
+    private static long sink;  // results are folded in here so the JIT cannot skip the work
+    
+    public static void main(String[] args) throws Exception {
+        String benchmark = args.length > 0 ? args[0] : "parse";
+        if (benchmark.equals("suite")) {
+            for (String size : (args.length > 1 ? args[1] : "1000,100000,1000000").split(",")) {
+                benchmarkSuite(Integer.parseInt(size.trim()));
+            }
+            System.out.println("(checksum " + sink + ")");
+            return;
+        }
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        
+        switch (benchmark) {
+            case "parse":
+                benchmarkParse(rows);
+                break;
+            case "load":
+                benchmarkLoad(rows);
+                break;
+            case "bulk":
+                benchmarkBulk(rows);
+                break;
+            case "delete":
+                benchmarkDelete(rows);
+                break;
+            case "columnar":
+                benchmarkColumnar(rows);
+                break;
+            case "fuzzy":
+                benchmarkFuzzy(rows);
+                break;
+            case "autocomplete":
+                benchmarkAutocomplete(rows);
+                break;
+            case "bloom":
+                benchmarkBloom(rows);
+                break;
+            case "concurrent":
+                benchmarkConcurrent(rows);
+                break;
+            case "stress":
+                stressTest(rows);
+                break;
+            case "planner":
+                plannerCheck(args.length > 1 ? rows : 20_000);
+                break;
+            case "list":
+                listCheck(rows);
+                break;
+            case "sequence":
+                sequenceCheck(rows);
+                break;
+            default:
+                System.out.println("Unknown benchmark: " + benchmark);
+                System.out.println("Available: suite, parse, load, bulk, delete, columnar, fuzzy, autocomplete, bloom, concurrent, stress,");
+                System.out.println("           planner, list, sequence");
+        }
+        System.out.println("(checksum " + sink + ")");
+    }
+    
+    /**
+     * Measures the main StudentManager operations on one dataset size
+     * Lookups use a fixed mix of existing and missing IDs, searches a fixed list
+     * of name fragments, so results are comparable between runs and versions.
+     */
+    private static void benchmarkSuite(int rows) throws IOException {
+        Path dir = Files.createTempDirectory("students-benchmark");
+        Path file = dir.resolve("students.csv");
+        try {
+            StudentDataGenerator.writeCsv(file.toString(), rows, SEED);
+            List<Student> students = new ParallelCsvLoader().load(file);
+            String[] lines = new String[rows];
+            for (int i = 0; i < rows; i++) {
+                lines[i] = students.get(i).toCSV();
+            }
+            StudentManager manager = quietly(() -> loadedManager(file));
+            Random random = new Random(SEED);
+            int[] ids = new int[100_000];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = 1 + random.nextInt(rows + rows / 10);  // about 9% misses
+            }
+            String[] names = {"al", "chen", "maria", "smith", "ong", "vijayakumar", "zz", "o'b"};
+            
+            System.out.println("Suite with " + rows + " students (" + Files.size(file) / 1024 + " KB)");
+            measure("loadFromFile", rows, () -> sink += quietly(() -> loadedManager(file)).getStudentCount());
+            measure("saveToFile", rows, () -> quietly(() -> {
+                manager.saveToFile();
+                return null;
+            }));
+            measure("Student.fromCSV", rows, () -> {
+                for (String line : lines) {
+                    consume(Student.fromCSV(line));
+                }
+            });
+            measure("Student.toCSV", rows, () -> {
+                for (Student student : students) {
+                    sink += student.toCSV().length();
+                }
+            });
+            measure("findStudentById", ids.length, () -> {
+                for (int id : ids) {
+                    Student student = manager.findStudentById(id);
+                    sink += student == null ? 0 : student.getAge();
+                }
+            });
+            measure("isIdExists (new IDs)", ids.length, () -> {
+                for (int id : ids) {
+                    sink += manager.isIdExists(id + rows + rows / 10) ? 1 : 0;
+                }
+            });
+            measure("findStudentsByName", names.length, () -> {
+                for (String name : names) {
+                    sink += manager.findStudentsByName(name).size();
+                }
+            });
+            String[] typos = {"jonh smiht", "mria", "vijaykumar", "xyzzy"};
+            measure("findStudentsByNameFuzzy", typos.length, () -> {
+                for (String typo : typos) {
+                    sink += manager.findStudentsByNameFuzzy(typo, 2, 20).size();
+                }
+            });
+            String[] sounds = {"smyth", "jon", "mohamad pilay", "xyzzy"};
+            measure("findStudentsBySound", sounds.length, () -> {
+                for (String sound : sounds) {
+                    sink += manager.findStudentsBySound(sound).size();
+                }
+            });
+            measure("same sound, coding every name", 1, () -> {
+                int wanted = PhoneticNameIndex.soundex("smyth");
+                for (Student student : students) {
+                    for (int code : PhoneticNameIndex.codes(student.getName())) {
+                        sink += code == wanted ? 1 : 0;
+                    }
+                }
+            });
+            String[] prefixes = {"m", "ma", "s", "vij", "q"};
+            measure("completeName (top 10)", prefixes.length, () -> {
+                for (String prefix : prefixes) {
+                    sink += manager.completeName(prefix, 10).size();
+                }
+            });
+            String[] grades = {"1st", "7th", "12th", "13th"};  // one class each, and a miss
+            measure("findStudentsByGrade", grades.length, () -> {
+                for (String grade : grades) {
+                    sink += manager.findStudentsByGrade(grade).size();
+                }
+            });
+            measure("findStudentsByAgeRange", 1, () -> sink += manager.findStudentsByAgeRange(18, 21).size());
+            StudentQuery byName = StudentQuery.and(StudentQuery.gradeIs("10th"), StudentQuery.ageBetween(15, 16),
+                                                   StudentQuery.nameContains("maria"));
+            measure("query (trigrams + probes)", 1, () -> sink += manager.query(byName).size());
+            StudentQuery filters = StudentQuery.and(StudentQuery.gradeIs("10th"), StudentQuery.ageBetween(15, 16),
+                                                    StudentQuery.emailDomain("gmail.com"));
+            measure("query (bitmap AND)", 1, () -> sink += manager.query(filters).size());
+            measure("same filters as a scan", 1, () -> {
+                for (Student student : students) {
+                    sink += filters.matches(student) ? 1 : 0;
+                }
+            });
+            measure("countByAgeRange", 1000, () -> {
+                for (int i = 0; i < 1000; i++) {
+                    sink += manager.countByAgeRange(18, 21 + i % 10);
+                }
+            });
+            manager.indexMemoryBytes().forEach((index, bytes) ->
+                System.out.printf("  %-28s %10.1f KB%n", index, bytes / 1024.0));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+    
+    /**
+     * Creates a StudentManager that loads the file but never writes a journal
+     */
+    private static StudentManager loadedManager(Path file) {
+        StudentManager manager = new StudentManager(file.toString(), StudentManager.StorageMode.MEMORY);
+        manager.loadFromFile();
+        return manager;
+    }
+    
+    /**
+     * Runs code with System.out switched off (StudentManager prints status messages)
+     */
+    private static <T> T quietly(java.util.function.Supplier<T> code) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            return code.get();
+        } finally {
+            System.setOut(out);
+        }
+    }
+    
+    /**
+     * Compares the old split()-based parser with the single-pass parsers
+     */
+    private static void benchmarkParse(int rows) {
+        List<Student> students = new StudentDataGenerator(SEED).generate(rows);
+        String[] lines = new String[rows];
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            lines[i] = students.get(i).toCSV();
+            file.append(lines[i]).append('\n');
+        }
+        students = null;
+        // the byte parser reads straight from the file contents, like the loader does
+        byte[] fileBytes = file.toString().getBytes(StandardCharsets.UTF_8);
+        file = null;
+        int[] lineEnds = new int[rows];
+        for (int i = 0, line = 0; i < fileBytes.length; i++) {
+            if (fileBytes[i] == '\n') {
+                lineEnds[line++] = i;
+            }
+        }
+        
+        System.out.println("Parsing " + rows + " CSV rows");
+        measure("split() parser (old)", rows, () -> {
+            for (String line : lines) {
+                consume(legacyFromCSV(line));
+            }
+        });
+        measure("Student.fromCSV", rows, () -> {
+            for (String line : lines) {
+                consume(Student.fromCSV(line));
+            }
+        });
+        StudentCsvParser parser = new StudentCsvParser();
+        measure("StudentCsvParser (bytes)", rows, () -> {
+            int lineStart = 0;
+            for (int lineEnd : lineEnds) {
+                consume(parser.parse(fileBytes, lineStart, lineEnd));
+                lineStart = lineEnd + 1;
+            }
+        });
+    }
+    
+    /**
+     * Compares the startup load time of the old reader with the parallel loader
+     */
+    private static void benchmarkLoad(int rows) throws IOException {
+        Path file = Files.createTempFile("students-benchmark", ".csv");
+        try {
+            StudentDataGenerator.writeCsv(file.toString(), rows, SEED);
+            System.out.println("Loading " + rows + " students (" + Files.size(file) / (1 << 20)
+                               + " MB, " + ForkJoinPool.commonPool().getParallelism()
+                               + " worker threads)");
+            
+            List<Student> expected = legacyLoad(file);
+            List<Student> actual = new ParallelCsvLoader().load(file);
+            for (int i = 0; i < rows; i++) {
+                if (!expected.get(i).toCSV().equals(actual.get(i).toCSV())) {
+                    throw new IllegalStateException("Loaders disagree at row " + i);
+                }
+            }
+            expected = null;
+            actual = null;
+            
+            measure("BufferedReader (old)", rows, () -> consumeAll(legacyLoad(file)));
+            measure("ParallelCsvLoader", rows, () -> {
+                try {
+                    consumeAll(new ParallelCsvLoader().load(file));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    /**
+     * Compares adding students one by one (one disk write each) with addAll
+     * (one write for the whole batch). One-by-one adds rewrite the whole CSV file
+     * every time, so they are only run on the first few thousand students.
+     */
+    private static void benchmarkBulk(int rows) throws IOException {
+        List<Student> students = new StudentDataGenerator(SEED).generate(rows);
+        int singleRows = Math.min(rows, 2000);
+        
+        System.out.println("Adding " + rows + " students (one by one: first " + singleRows + ")");
+        for (StudentManager.StorageMode mode : new StudentManager.StorageMode[] {
+                StudentManager.StorageMode.CSV, StudentManager.StorageMode.JOURNALED,
+                StudentManager.StorageMode.BINARY}) {
+            Path dir = Files.createTempDirectory("students-benchmark");
+            try {
+                long start = System.nanoTime();
+                StudentManager manager = quietly(() -> new StudentManager(
+                        dir.resolve("single.csv").toString(), mode));
+                for (Student student : students.subList(0, singleRows)) {
+                    manager.insertStudent(student);
+                }
+                manager.close();
+                report(mode + " one by one", singleRows, System.nanoTime() - start);
+                
+                start = System.nanoTime();
+                manager = quietly(() -> new StudentManager(dir.resolve("bulk.csv").toString(), mode));
+                sink += manager.addAll(students).size();
+                manager.close();
+                report(mode + " addAll", rows, System.nanoTime() - start);
+                
+                start = System.nanoTime();
+                manager = quietly(() -> new StudentManager(dir.resolve("new-ids.csv").toString(), mode));
+                sink += manager.addAllWithNewIds(students).size();
+                manager.close();
+                report(mode + " addAllWithNewIds", rows, System.nanoTime() - start);
+            } finally {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                    for (Path file : files) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(dir);
+            }
+        }
+    }
+    
+    /**
+     * Deletes 10,000 random students one by one: from an in-memory StudentManager
+     * (student list and all indexes), and from the student list alone - a
+     * StudentList, which leaves tombstones, vs. a plain ArrayList, which shifts
+     * every later student down (how the manager deleted before)
+     */
+    private static void benchmarkDelete(int rows) {
+        int deletes = Math.min(rows, 10_000);
+        int[] ids = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = i + 1;
+        }
+        Random random = new Random(SEED);
+        for (int i = rows - 1; i > 0; i--) {  // shuffle, the first deletes are the victims
+            int j = random.nextInt(i + 1);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        
+        System.out.println("Deleting " + deletes + " of " + rows + " students one by one");
+        StudentManager manager = memoryManager(rows);
+        long start = System.nanoTime();
+        for (int i = 0; i < deletes; i++) {
+            sink += manager.removeStudent(ids[i]) ? 1 : 0;
+        }
+        report("StudentManager.removeStudent", deletes, System.nanoTime() - start);
+        
+        List<Student> remaining = manager.getAllStudents();
+        IntObjectHashMap<Student> index = new IntObjectHashMap<>(rows);
+        StudentList tombstoned = new StudentList();
+        for (Student student : remaining) {
+            index.put(student.getId(), student);
+            tombstoned.add(student);
+        }
+        ArrayList<Student> shifted = new ArrayList<>(remaining);
+        int listDeletes = Math.min(deletes, rows - deletes);
+        start = System.nanoTime();
+        for (int i = deletes; i < deletes + listDeletes; i++) {
+            sink += tombstoned.remove(index.get(ids[i])) ? 1 : 0;
+        }
+        report("StudentList.remove", listDeletes, System.nanoTime() - start);
+        start = System.nanoTime();
+        for (int i = deletes; i < deletes + listDeletes; i++) {
+            sink += shifted.remove(index.get(ids[i])) ? 1 : 0;
+        }
+        report("ArrayList.remove (old)", listDeletes, System.nanoTime() - start);
+    }
+    
+    private static void report(String name, int students, long nanos) {
+        System.out.printf("  %-28s %10.1f ms %12.0f students/s%n", name, nanos / 1e6,
+                          students / (nanos / 1e9));
+    }
+    
+    /**
+     * Compares Student objects (with an ID index, like StudentManager keeps them)
+     * with a ColumnarStudentTable: retained heap per student and scan speed
+     */
+    private static void benchmarkColumnar(int rows) {
+        // students are parsed from CSV lines, as StudentManager loads them
+        StudentDataGenerator generator = new StudentDataGenerator(SEED);
+        byte[][] lines = new byte[rows][];
+        for (int i = 0; i < rows; i++) {
+            lines[i] = generator.next(i + 1).toCSV().getBytes(StandardCharsets.UTF_8);
+        }
+        StudentCsvParser parser = new StudentCsvParser();
+        
+        long before = usedHeapAfterGc();
+        List<Student> objects = new ArrayList<>(rows);
+        IntObjectHashMap<Student> byId = new IntObjectHashMap<>(rows);
+        for (byte[] line : lines) {
+            Student student = parser.parse(line, 0, line.length);
+            objects.add(student);
+            byId.put(student.getId(), student);
+        }
+        long objectBytes = usedHeapAfterGc() - before;
+        
+        before = usedHeapAfterGc();
+        ColumnarStudentTable table = new ColumnarStudentTable(rows);
+        for (byte[] line : lines) {
+            table.add(parser.parse(line, 0, line.length));
+        }
+        table.trimToSize();
+        long tableBytes = usedHeapAfterGc() - before;
+        sink += lines.length;  // keeps the lines reachable until both heap readings are taken
+        lines = null;
+        
+        String[] names = {"al", "chen", "maria", "smith", "ong", "vijayakumar", "zz", "ü"};
+        for (String name : names) {  // both scans must find the same students
+            int expected = 0;
+            for (Student student : objects) {
+                if (student.getName().toLowerCase().contains(name)) {
+                    expected++;
+                }
+            }
+            if (table.findByName(name).size() != expected) {
+                throw new IllegalStateException("Scans disagree for \"" + name + "\"");
+            }
+        }
+        
+        System.out.println("Storing " + rows + " students");
+        System.out.printf("  %-28s %10.1f bytes/student%n", "Student objects + ID index",
+                          (double) objectBytes / rows);
+        System.out.printf("  %-28s %10.1f bytes/student (%.1fx smaller)%n", "ColumnarStudentTable",
+                          (double) tableBytes / rows, (double) objectBytes / tableBytes);
+        measure("name scan (objects)", (long) rows * names.length, () -> {
+            for (String name : names) {
+                for (Student student : objects) {
+                    if (student.getName().toLowerCase().contains(name)) {
+                        sink++;
+                    }
+                }
+            }
+        });
+        measure("name scan (columnar)", (long) rows * names.length, () -> {
+            for (String name : names) {
+                sink += table.findByName(name).size();
+            }
+        });
+        measure("grade scan (objects)", rows, () -> {
+            for (Student student : objects) {
+                if (student.getGrade().equals("7th")) {
+                    sink++;
+                }
+            }
+        });
+        measure("grade scan (columnar)", rows, () -> sink += table.findByGrade("7th").size());
+        sink += byId.size() + table.size();
+    }
+    
+    /**
+     * @return heap in use after garbage collection (lowest of a few tries, as a
+     * single System.gc() does not always collect everything)
+     */
+    private static long usedHeapAfterGc() {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+    
+    /**
+     * Compares fuzzy name search with FuzzyNameIndex against computing the edit
+     * distance to every name. The generator's names come from a few dozen words,
+     * so this benchmark makes up names from syllables instead, for tens of
+     * thousands of distinct words like a real school district has.
+     */
+    private static void benchmarkFuzzy(int rows) {
+        String[] names = madeUpNames(rows);
+        FuzzyNameIndex index = new FuzzyNameIndex(id -> names[id - 1]);
+        long start = System.nanoTime();
+        for (int id = 1; id <= rows; id++) {
+            index.add(id, names[id - 1]);
+        }
+        System.out.printf("Fuzzy search over %d names, %d distinct words (index built in %.0f ms)%n",
+                          rows, index.wordCount(), (System.nanoTime() - start) / 1e6);
+        
+        // misspell names that exist: two neighbouring letters swapped
+        Random random = new Random(SEED);
+        String[] typos = new String[20];
+        for (int i = 0; i < typos.length; i++) {
+            char[] name = names[random.nextInt(rows)].toCharArray();
+            int at = random.nextInt(name.length - 1);
+            char swap = name[at];
+            name[at] = name[at + 1];
+            name[at + 1] = swap;
+            typos[i] = new String(name);
+        }
+        measure("index, distance 1", typos.length, () -> {
+            for (String typo : typos) {
+                sink += index.search(typo, 1, 20).length;
+            }
+        });
+        measure("index, distance 2", typos.length, () -> {
+            for (String typo : typos) {
+                sink += index.search(typo, 2, 20).length;
+            }
+        });
+        int[][] rowsScratch = new int[3][];
+        measure("every name, distance 2", 1, () -> {
+            List<String> words = FuzzyNameIndex.words(typos[0]);
+            for (String name : names) {
+                int total = 0;
+                for (String word : words) {
+                    int best = Integer.MAX_VALUE;
+                    for (String nameWord : FuzzyNameIndex.words(name)) {
+                        best = Math.min(best, FuzzyNameIndex.distance(word, nameWord, rowsScratch));
+                    }
+                    total = best <= 2 ? total + best : Integer.MAX_VALUE / 2;
+                }
+                sink += total <= 4 ? 1 : 0;
+            }
+        });
+    }
+    
+    /**
+     * Measures type-ahead suggestions from NameAutocomplete against counting the
+     * matching words of every name, on the same made-up names as the fuzzy benchmark
+     */
+    private static void benchmarkAutocomplete(int rows) {
+        String[] names = madeUpNames(rows);
+        NameAutocomplete trie = new NameAutocomplete();
+        long start = System.nanoTime();
+        for (String name : names) {
+            trie.add(name);
+        }
+        System.out.printf("Autocomplete over %d names, %d distinct words (trie built in %.0f ms, %.1f KB)%n",
+                          rows, trie.wordCount(), (System.nanoTime() - start) / 1e6,
+                          trie.memoryBytes() / 1024.0);
+        
+        String[] prefixes = {"k", "ma", "ber", "stowen", "x"};
+        measure("top 10 from the trie", prefixes.length, () -> {
+            for (String prefix : prefixes) {
+                sink += trie.complete(prefix, 10).size();
+            }
+        });
+        measure("top 10 by scanning names", 1, () -> {
+            Map<String, Integer> counts = new HashMap<>();
+            for (String name : names) {
+                for (String word : name.toLowerCase().split(" ")) {
+                    if (word.startsWith("ma")) {
+                        counts.merge(word, 1, Integer::sum);
+                    }
+                }
+            }
+            List<Map.Entry<String, Integer>> sorted = new ArrayList<>(counts.entrySet());
+            sorted.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            sink += sorted.subList(0, Math.min(10, sorted.size())).size();
+        });
+    }
+    
+    /**
+     * Measures IdBloomFilter on IDs 1 to rows: the false positive rate it reaches
+     * on IDs that were never added, its size, and the time to rule out a new ID
+     * compared with asking the ID hash index
+     */
+    private static void benchmarkBloom(int rows) {
+        IntObjectHashMap<Boolean> index = new IntObjectHashMap<>();
+        for (int id = 1; id <= rows; id++) {
+            index.put(id, Boolean.TRUE);
+        }
+        int[] newIds = new int[1_000_000];
+        Random random = new Random(SEED);
+        for (int i = 0; i < newIds.length; i++) {
+            newIds[i] = rows + 1 + random.nextInt(Integer.MAX_VALUE - rows);
+        }
+        System.out.println("ID Bloom filter over " + rows + " IDs, " + newIds.length + " new IDs");
+        for (double rate : new double[] {0.01, 0.001}) {
+            // sized for the IDs up front like after a load, and grown from empty like a new system
+            for (int expected : new int[] {rows + rows / 4, 1024}) {
+                IdBloomFilter filter = new IdBloomFilter(expected, rate);
+                for (int id = 1; id <= rows; id++) {
+                    filter.add(id);
+                }
+                int falsePositives = 0;
+                for (int id : newIds) {
+                    falsePositives += filter.mightContain(id) ? 1 : 0;
+                }
+                System.out.printf("  rate %.1f%%, %d stage(s): %.3f%% false positives, %.1f bits per ID%n",
+                                  rate * 100, filter.stageCount(), falsePositives * 100.0 / newIds.length,
+                                  filter.memoryBytes() * 8.0 / rows);
+                measure("filter, " + filter.stageCount() + " stage(s)", newIds.length, () -> {
+                    for (int id : newIds) {
+                        sink += filter.mightContain(id) ? 1 : 0;
+                    }
+                });
+            }
+        }
+        measure("ID hash index", newIds.length, () -> {
+            for (int id : newIds) {
+                sink += index.containsKey(id) ? 1 : 0;
+            }
+        });
+    }
+    
+    /**
+     * Makes up names from syllables: about 900 first names and 27,000 last names,
+     * many more distinct words than StudentDataGenerator uses
+     */
+    private static String[] madeUpNames(int rows) {
+        String[] syllables = {"ka", "lo", "mi", "ran", "te", "su", "bor", "vi", "an", "del",
+                              "go", "ha", "jo", "ne", "pa", "ri", "sto", "wen", "ya", "zu",
+                              "ber", "cha", "di", "fe", "li", "mar", "os", "ul", "qui", "tan"};
+        Random random = new Random(SEED);
+        String[] names = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            String first = syllables[random.nextInt(30)] + syllables[random.nextInt(30)];
+            String last = syllables[random.nextInt(30)] + syllables[random.nextInt(30)]
+                        + syllables[random.nextInt(30)];
+            names[i] = first + " " + last;
+        }
+        return names;
+    }
+    
+    /**
+     * Measures how StudentManager throughput scales with the number of threads
+     * Every thread runs the same mix: 80% lookups by ID, 10% name searches and
+     * 10% updates, on a manager that keeps everything in memory.
+     */
+    private static void benchmarkConcurrent(int rows) throws InterruptedException {
+        StudentManager manager = memoryManager(rows);
+        String[] names = {"ali", "chen", "maria", "smith", "patel", "kumar"};
+        long millisPerRun = 2000;
+        
+        System.out.println("StudentManager throughput with " + rows + " students ("
+                           + Runtime.getRuntime().availableProcessors() + " CPUs)");
+        for (int threads = 1; threads <= 32; threads *= 2) {
+            LongAdder operations = new LongAdder();
+            runThreads(threads, millisPerRun, random -> {
+                int op = random.nextInt(10);
+                int id = 1 + random.nextInt(rows);
+                if (op < 8) {
+                    Student student = manager.findStudentById(id);
+                    sink += student == null ? 0 : student.getAge();
+                } else if (op == 8) {
+                    sink += manager.findStudentsByName(names[random.nextInt(names.length)]).size();
+                } else {
+                    manager.updateStudent(id, null, 5 + random.nextInt(15), null, null);
+                }
+                operations.increment();
+            });
+            System.out.printf("  %2d threads %12.0f ops/s%n", threads,
+                              operations.sum() * 1000.0 / millisPerRun);
+        }
+    }
+    
+    /**
+     * Runs the stress test once per storage mode: in memory, and with the CSV file,
+     * the journal and the binary record file, where every change also goes to
+     * the disk under the write lock
+     */
+    private static void stressTest(int rows) throws InterruptedException, IOException {
+        for (StudentManager.StorageMode mode : StudentManager.StorageMode.values()) {
+            Path dir = Files.createTempDirectory("students-stress");
+            try {
+                stressTest(rows, mode, dir.resolve("students.csv").toString());
+            } finally {
+                deleteDirectory(dir);
+            }
+        }
+    }
+    
+    /**
+     * Deletes a temporary directory and the files in it
+     */
+    private static void deleteDirectory(Path dir) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+    
+    /**
+     * Hammers one StudentManager from many threads, then checks its consistency
+     * The original students are only updated, never deleted, so readers must always
+     * find them, by ID and by their email address (which never changes). A grade
+     * is only ever changed to "Stress Grade", so every student a grade search or
+     * query returns for it must still have it. Added students are deleted again
+     * by any thread. With a data file, the students are reloaded at the end and
+     * must match what was in memory.
+     */
+    private static void stressTest(int rows, StudentManager.StorageMode mode, String fileName)
+            throws InterruptedException {
+        int threads = 16;
+        long millis = 3000;
+        StudentManager manager = quietly(() -> new StudentManager(fileName, mode));
+        List<Student> originals = new StudentDataGenerator(SEED).generate(rows);
+        String[] emails = new String[rows + 1];  // by ID
+        for (Student student : originals) {
+            emails[student.getId()] = student.getEmail();
+        }
+        manager.addAll(originals);
+        AtomicLong operations = new AtomicLong();
+        AtomicLong problems = new AtomicLong();
+        ConcurrentLinkedQueue<Integer> added = new ConcurrentLinkedQueue<>();
+        StudentDataGenerator generator = new StudentDataGenerator(SEED + 1);
+        StudentQuery stressGradeQuery = StudentQuery.and(StudentQuery.gradeIs("Stress Grade"),
+                                                         StudentQuery.ageBetween(1, 150));
+        
+        System.out.println("Stress test (" + mode + "): " + threads + " threads for " + millis / 1000
+                           + " s on " + rows + " students");
+        runThreads(threads, millis, random -> {
+            int id = 1 + random.nextInt(rows);
+            switch (random.nextInt(10)) {
+                case 0:
+                    Student student;
+                    synchronized (generator) {
+                        student = generator.next(manager.nextStudentId());
+                    }
+                    if (random.nextBoolean()) {
+                        student = manager.insertNewStudent(student.getName(), student.getAge(),
+                                                           student.getGrade(), student.getEmail());
+                        added.add(student.getId());
+                    } else if (manager.insertStudent(student)) {
+                        added.add(student.getId());
+                    } else {
+                        problems.incrementAndGet();
+                    }
+                    break;
+                case 1:
+                    Integer addedId = added.poll();
+                    if (addedId != null && !manager.removeStudent(addedId)) {
+                        problems.incrementAndGet();
+                    }
+                    break;
+                case 2:
+                    String grade = random.nextBoolean() ? "Stress Grade" : null;
+                    int age = random.nextBoolean() ? 1 + random.nextInt(150) : 0;
+                    if (!manager.updateStudent(id, "Stress Test " + id, age, grade, null)) {
+                        problems.incrementAndGet();
+                    }
+                    break;
+                case 3:
+                    if (manager.findStudentsByName("stress").size() > rows) {
+                        problems.incrementAndGet();
+                    }
+                    break;
+                case 4:
+                    for (Student found : manager.findStudentsByGrade("Stress Grade")) {
+                        if (!"Stress Grade".equals(found.getGrade())) {
+                            problems.incrementAndGet();
+                        }
+                    }
+                    break;
+                case 5:
+                    if (manager.findStudentsByAgeRange(13, 19).size() > manager.getStudentCount() + threads) {
+                        problems.incrementAndGet();
+                    }
+                    break;
+                case 6:
+                    Student owner = manager.findStudentByEmail(emails[id]);
+                    if (owner == null || owner.getId() != id) {
+                        problems.incrementAndGet();
+                    }
+                    break;
+                case 7:
+                    for (Student found : manager.query(stressGradeQuery)) {
+                        if (!"Stress Grade".equals(found.getGrade())) {
+                            problems.incrementAndGet();
+                        }
+                    }
+                    break;
+                default:
+                    Student found = manager.findStudentById(id);
+                    if (found == null || found.getId() != id) {
+                        problems.incrementAndGet();
+                    }
+            }
+            operations.incrementAndGet();
+        });
+        
+        List<Student> all = manager.getAllStudents();
+        if (all.size() != rows + added.size() || manager.getStudentCount() != all.size()) {
+            problems.incrementAndGet();
+            System.out.println("  count mismatch: " + all.size() + " students, expected "
+                               + (rows + added.size()));
+        }
+        int renamed = 0;
+        int regraded = 0;
+        int teens = 0;
+        for (Student student : all) {
+            if (manager.findStudentById(student.getId()) != student || !manager.isIdExists(student.getId())
+                    || manager.findStudentByEmail(student.getEmail()) != student) {
+                problems.incrementAndGet();
+            }
+            if (student.getName().toLowerCase().contains("stress")) {
+                renamed++;
+            }
+            if ("Stress Grade".equals(student.getGrade())) {
+                regraded++;
+            }
+            if (student.getAge() >= 13 && student.getAge() <= 19) {
+                teens++;
+            }
+        }
+        if (manager.findStudentsByName("stress").size() != renamed) {
+            problems.incrementAndGet();
+            System.out.println("  name index does not match the student names");
+        }
+        if (manager.findStudentsByNameFuzzy("stress test", 0, Integer.MAX_VALUE).size() != renamed
+                || manager.findStudentsBySound("Stres Tesst").size() != renamed) {
+            problems.incrementAndGet();
+            System.out.println("  fuzzy or phonetic name index does not match the student names");
+        }
+        List<NameAutocomplete.Completion> stressWord = manager.completeName("stress", 1);
+        if (renamed > 0 && (stressWord.isEmpty() || stressWord.get(0).getStudents() != renamed)) {
+            problems.incrementAndGet();
+            System.out.println("  autocomplete counts do not match the student names");
+        }
+        if (manager.findStudentsByGrade("Stress Grade").size() != regraded
+                || manager.countStudentsByGrade("Stress Grade") != regraded
+                || manager.query(stressGradeQuery).size() != regraded) {
+            problems.incrementAndGet();
+            System.out.println("  grade index does not match the student grades");
+        }
+        if (manager.findStudentsByAgeRange(13, 19).size() != teens || manager.countByAgeRange(13, 19) != teens) {
+            problems.incrementAndGet();
+            System.out.println("  age index does not match the student ages");
+        }
+        manager.close();
+        if (mode != StudentManager.StorageMode.MEMORY) {
+            StudentManager reloaded = quietly(() -> new StudentManager(fileName, mode));
+            if (!sortedCsv(reloaded.getAllStudents()).equals(sortedCsv(all))) {
+                problems.incrementAndGet();
+                System.out.println("  reloaded students do not match the students in memory");
+            }
+            reloaded.close();
+        }
+        System.out.println("  " + operations.get() + " operations, " + problems.get() + " problems");
+        if (problems.get() > 0) {
+            throw new IllegalStateException("stress test found " + problems.get() + " problems");
+        }
+    }
+    
+    /**
+     * Checks the query planner against a plain scan
+     * Every round changes one student (add, delete or update) and then runs a
+     * random query of up to three levels of AND, OR and NOT over names, grades,
+     * ages, email domains and ID ranges. StudentManager.query must return exactly
+     * the students for which StudentQuery.matches is true. The seed is fixed, so
+     * a failure can be repeated.
+     */
+    private static void plannerCheck(int rows) {
+        int rounds = 3000;
+        StudentManager manager = memoryManager(rows);
+        StudentDataGenerator generator = new StudentDataGenerator(SEED + 1);
+        Random random = new Random(SEED);
+        int nextId = rows + 1;
+        int matched = 0;
+        int problems = 0;
+        
+        System.out.println("Planner check: " + rounds + " random queries on " + rows + " students");
+        for (int round = 0; round < rounds; round++) {
+            int id = 1 + random.nextInt(nextId - 1);
+            switch (random.nextInt(4)) {
+                case 0:
+                    manager.insertStudent(generator.next(nextId++));
+                    break;
+                case 1:
+                    manager.removeStudent(id);
+                    break;
+                default:
+                    Student details = generator.next(id);
+                    manager.updateStudent(id, details.getName(), details.getAge(), details.getGrade(),
+                                          details.getEmail());
+            }
+            List<Student> all = manager.getAllStudents();
+            StudentQuery query = randomQuery(all, random, 3);
+            List<Integer> expected = new ArrayList<>();
+            for (Student student : all) {
+                if (query.matches(student)) {
+                    expected.add(student.getId());
+                }
+            }
+            List<Integer> actual = new ArrayList<>();
+            for (Student student : manager.query(query)) {
+                actual.add(student.getId());
+            }
+            Collections.sort(expected);
+            Collections.sort(actual);
+            if (!actual.equals(expected)) {
+                if (++problems <= 5) {
+                    System.out.println("  " + query + ": " + actual.size() + " students, a scan finds "
+                                       + expected.size());
+                    System.out.println("  " + manager.explain(query).trim().replace("\n", "\n  "));
+                }
+            }
+            if (!expected.isEmpty()) {
+                matched++;
+            }
+        }
+        System.out.println("  " + rounds + " queries (" + matched + " with matches), " + problems + " problems");
+        if (problems > 0) {
+            throw new IllegalStateException("planner check found " + problems + " problems");
+        }
+    }
+    
+    /**
+     * Checks StudentList against an ArrayList that gets the same adds and removes
+     * IDs come from a small range, so many students share an ID: removing one
+     * that the ID map does not point at takes the scan fallback, and vacuum()
+     * has to keep the map on the right copy. Now and then a student that is not
+     * in the list is removed, and vacuum() is called by hand on top of the
+     * automatic one. Order, size and every remove() result must agree.
+     */
+    private static void listCheck(int operations) {
+        StudentList list = new StudentList();
+        List<Student> reference = new ArrayList<>();
+        StudentDataGenerator generator = new StudentDataGenerator(SEED);
+        Random random = new Random(SEED);
+        int sharedIdRemoves = 0;
+        int vacuums = 0;
+        int problems = 0;
+        
+        System.out.println("StudentList check: " + operations + " random operations");
+        for (int op = 0; op < operations; op++) {
+            int choice = random.nextInt(100);
+            if (choice < (reference.size() < 5000 ? 55 : 45)) {
+                Student student = generator.next(1 + random.nextInt(2000));
+                list.add(student);
+                reference.add(student);
+            } else if (choice < 90 && !reference.isEmpty()) {
+                Student student = reference.remove(random.nextInt(reference.size()));
+                for (Student other : reference) {
+                    if (other.getId() == student.getId()) {
+                        sharedIdRemoves++;
+                        break;
+                    }
+                }
+                if (!list.remove(student)) {
+                    problems++;
+                }
+            } else if (list.remove(generator.next(1 + random.nextInt(2000)))) {
+                problems++;  // never added
+            }
+            if (random.nextInt(20_000) == 0) {  // rarely, so the automatic vacuum gets its turn too
+                list.vacuum();
+                vacuums++;
+                if (list.tombstoneCount() != 0) {
+                    problems++;
+                }
+            }
+            if (op % 1000 == 0 || op == operations - 1) {
+                if (list.size() != reference.size() || !list.toList().equals(reference)) {
+                    if (++problems <= 5) {
+                        System.out.println("  after " + (op + 1) + " operations: " + list.size()
+                                           + " students, expected " + reference.size());
+                    }
+                }
+            }
+        }
+        System.out.println("  " + sharedIdRemoves + " removes of a student sharing an ID, " + vacuums
+                           + " vacuums by hand, " + problems + " problems");
+        if (problems > 0) {
+            throw new IllegalStateException("StudentList check found " + problems + " problems");
+        }
+    }
+    
+    /**
+     * Checks the ID sequence
+     * 8 threads take IDs with next() and reserve() from one sequence with small
+     * blocks, and report IDs ahead of it with observe(); no ID may come out
+     * twice. A second sequence opened on the same file (as after a crash) must
+     * start after every ID handed out. Then a StudentManager gets a typed ID
+     * near Integer.MAX_VALUE, and its next new ID must still be a small one;
+     * near the end of the range, remembered IDs must be skipped.
+     */
+    private static void sequenceCheck(int ids) throws InterruptedException, IOException {
+        Path dir = Files.createTempDirectory("students-sequence");
+        int threads = 8;
+        AtomicLong problems = new AtomicLong();
+        try {
+            String fileName = dir.resolve("check.seq").toString();
+            StudentIdSequence sequence = new StudentIdSequence(fileName, 100);
+            Set<Integer> handedOut = ConcurrentHashMap.newKeySet();
+            AtomicInteger highest = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < ids / threads; i++) {
+                        int count = i % 50 == 0 ? 7 : 1;
+                        int first = count == 1 ? sequence.next() : sequence.reserve(count);
+                        for (int id = first; id < first + count; id++) {
+                            if (!handedOut.add(id)) {
+                                problems.incrementAndGet();
+                            }
+                        }
+                        highest.accumulateAndGet(first + count - 1, Math::max);
+                        if (i % 1000 == 0) {
+                            sequence.observe(first + 500);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("sequence thread failed", e.getCause());
+            } finally {
+                executor.shutdown();
+            }
+            System.out.println("ID sequence check: " + handedOut.size() + " IDs from " + threads
+                               + " threads, highest " + highest.get());
+            
+            StudentIdSequence reopened = new StudentIdSequence(fileName, 100);
+            reopened.load();
+            int afterRestart = reopened.next();
+            if (afterRestart <= highest.get()) {
+                problems.incrementAndGet();
+                System.out.println("  reopened sequence hands out " + afterRestart + " again");
+            }
+            
+            StudentManager manager = quietly(() -> new StudentManager(dir.resolve("students.csv").toString(),
+                                                                      StudentManager.StorageMode.JOURNALED));
+            manager.insertStudent(new Student(Integer.MAX_VALUE - 5, "Typed Id", 20, "10th", "typed@x.com"));
+            int newId = manager.insertNewStudent("New Id", 20, "10th", "new@x.com").getId();
+            manager.close();
+            if (newId >= 1 << 30) {
+                problems.incrementAndGet();
+                System.out.println("  a typed ID near Integer.MAX_VALUE moved the sequence to " + newId);
+            }
+            
+            Files.write(dir.resolve("end.seq"), ((Integer.MAX_VALUE - 3) + "\n").getBytes(StandardCharsets.UTF_8));
+            StudentIdSequence nearEnd = new StudentIdSequence(dir.resolve("end.seq").toString(), 10);
+            nearEnd.load();
+            nearEnd.observe(Integer.MAX_VALUE - 2);
+            nearEnd.observe(Integer.MAX_VALUE);
+            List<Integer> last = new ArrayList<>();
+            try {
+                while (true) {
+                    last.add(nearEnd.next());
+                }
+            } catch (IllegalStateException e) {
+                // all IDs used
+            }
+            if (!last.equals(List.of(Integer.MAX_VALUE - 3, Integer.MAX_VALUE - 1))) {
+                problems.incrementAndGet();
+                System.out.println("  the last IDs handed out were " + last);
+            }
+        } finally {
+            deleteDirectory(dir);
+        }
+        System.out.println("  " + problems.get() + " problems");
+        if (problems.get() > 0) {
+            throw new IllegalStateException("ID sequence check found " + problems.get() + " problems");
+        }
+    }
+    
+    /**
+     * Builds a random query whose values are taken from the given students
+     * @param depth - levels of AND, OR and NOT still allowed
+     */
+    private static StudentQuery randomQuery(List<Student> students, Random random, int depth) {
+        Student sample = students.get(random.nextInt(students.size()));
+        switch (random.nextInt(depth > 0 ? 8 : 5)) {
+            case 0:
+                String name = sample.getName().toLowerCase();
+                int start = random.nextInt(name.length());
+                return StudentQuery.nameContains(name.substring(start, Math.min(name.length(),
+                                                                   start + 1 + random.nextInt(5))));
+            case 1:
+                return StudentQuery.gradeIs(random.nextInt(10) == 0 ? "13th" : sample.getGrade());
+            case 2:
+                int minAge = random.nextInt(25);
+                return StudentQuery.ageBetween(minAge, minAge + random.nextInt(6));
+            case 3:
+                return StudentQuery.emailDomain(EmailDomainIndex.domainOf(sample.getEmail()));
+            case 4:
+                int minId = Math.max(1, sample.getId() - random.nextInt(2000));
+                return StudentQuery.idBetween(minId, minId + random.nextInt(4000));
+            case 5:
+                return StudentQuery.not(randomQuery(students, random, depth - 1));
+            default:
+                StudentQuery[] parts = new StudentQuery[2 + random.nextInt(2)];
+                for (int i = 0; i < parts.length; i++) {
+                    parts[i] = randomQuery(students, random, depth - 1);
+                }
+                return random.nextBoolean() ? StudentQuery.and(parts) : StudentQuery.or(parts);
+        }
+    }
+    
+    /**
+     * @return the CSV lines of the students, sorted (to compare lists in any order)
+     */
+    private static List<String> sortedCsv(List<Student> students) {
+        List<String> lines = new ArrayList<>(students.size());
+        for (Student student : students) {
+            lines.add(student.toCSV());
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+    
+    /**
+     * Creates an in-memory StudentManager with IDs 1 to rows
+     */
+    private static StudentManager memoryManager(int rows) {
+        StudentManager manager = new StudentManager("benchmark.csv", StudentManager.StorageMode.MEMORY);
+        for (Student student : new StudentDataGenerator(SEED).generate(rows)) {
+            manager.insertStudent(student);
+        }
+        return manager;
+    }
+    
+    /**
+     * One step of a multi-threaded benchmark
+     */
+    interface ThreadStep {
+        void run(ThreadLocalRandom random);
+    }
+    
+    /**
+     * Runs the step in a loop on the given number of threads for a fixed time
+     * An exception in any thread fails the benchmark.
+     */
+    private static void runThreads(int threads, long millis, ThreadStep step)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        long[] deadline = new long[1];
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline[0]) {
+                    step.run(random);
+                }
+                return null;
+            }));
+        }
+        deadline[0] = System.nanoTime() + millis * 1_000_000;
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("benchmark thread failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * The original StudentManager.loadFromFile loop, kept as the baseline
+     */
+    private static List<Student> legacyLoad(Path file) {
+        List<Student> students = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine(); // Skip header
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    students.add(legacyFromCSV(line));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return students;
+    }
+    
+    /**
+     * The original Student.fromCSV, kept as the baseline
+     */
+    private static Student legacyFromCSV(String csvLine) {
+        String[] parts = csvLine.split(",");
+        return new Student(
+            Integer.parseInt(parts[0]),
+            parts[1],
+            Integer.parseInt(parts[2]),
+            parts[3],
+            parts[4]
+        );
+    }
+    
+    /**
+     * Runs the task a few times to warm up the JIT, then reports the average
+     * time and heap allocation of the measured runs, and the garbage collections
+     * they caused
+     * @param name - label to print
+     * @param operations - operations done by one run of the task (for per-op numbers)
+     * @param task - work to measure
+     */
+    static void measure(String name, long operations, Runnable task) {
+        long warmupStart = System.nanoTime();
+        for (int i = 0; i < WARMUP_ROUNDS || System.nanoTime() - warmupStart < MIN_PHASE_NANOS; i++) {
+            task.run();
+        }
+        long totalNanos = 0;
+        long totalBytes = 0;
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        int rounds = 0;
+        while (rounds < MEASURED_ROUNDS || totalNanos < MIN_PHASE_NANOS) {
+            rounds++;
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            task.run();
+            totalNanos += System.nanoTime() - start;
+            totalBytes += allocatedBytes() - bytesBefore;
+        }
+        double nanosPerOp = (double) totalNanos / rounds / operations;
+        double bytesPerOp = (double) totalBytes / rounds / operations;
+        System.out.printf("  %-28s %10.1f ns/op %10.1f B/op %10.1f ms/run %5d GCs %6d ms GC%n", name,
+                          nanosPerOp, bytesPerOp, totalNanos / 1e6 / rounds,
+                          gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+    }
+    
+    /**
+     * @return bytes allocated on the heap so far by all running threads
+     * (includes pool threads, so parallel loading is counted in full)
+     */
+    static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;  // -1 for threads that ended meanwhile
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * @return number of garbage collections so far
+     */
+    static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+    
+    /**
+     * @return time spent in garbage collection so far, in milliseconds
+     */
+    static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+    
+    static void consume(Student student) {
+        sink += student.getId() + student.getAge() + student.getName().length();
+    }
+    
+    static void consumeAll(List<Student> students) {
+        sink += students.size();
+        if (!students.isEmpty()) {
+            consume(students.get(students.size() - 1));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * StudentDataGenerator creates realistic-looking fake students for benchmarks
+ * The same seed always produces the same students, so benchmark runs compare
+ * like with like.
+ */
+class StudentDataGenerator {
+    private static final String[] FIRST_NAMES = {
+        "Aarav", "Aisha", "Alex", "Amelia", "Ana", "Arjun", "Ben", "Chen", "Chloe", "Daniel",
+        "Diya", "Emma", "Ethan", "Fatima", "Gabriel", "Hana", "Ivan", "Jack", "Jane", "John",
+        "Kavya", "Leo", "Lucia", "Maria", "Mateo", "Mei", "Mohammed", "Noah", "Olivia", "Omar",
+        "Priya", "Rahul", "Sara", "Sofia", "Tom", "Wei", "Yusuf", "Zara", "Zoe", "Lukas"
+    };
+    private static final String[] LAST_NAMES = {
+        "Anderson", "Brown", "Chen", "Das", "Fernandez", "Garcia", "Gupta", "Hansen", "Ibrahim",
+        "Johnson", "Kim", "Kumar", "Lee", "Lopez", "Martin", "Menon", "Müller", "Nair", "Nguyen",
+        "Novak", "O'Brien", "Patel", "Pillai", "Rossi", "Santos", "Schmidt", "Silva", "Singh",
+        "Smith", "Tanaka", "Taylor", "Thomas", "Vijayakumar", "Wang", "Williams", "Yamamoto"
+    };
+    private static final String[] GRADES = {
+        "1st", "2nd", "3rd", "4th", "5th", "6th", "7th", "8th", "9th", "10th", "11th", "12th"
+    };
+    private static final String[] EMAIL_DOMAINS = {
+        "gmail.com", "yahoo.com", "outlook.com", "school.edu", "hotmail.com"
+    };
+    
+    private final Random random;
+    
+    /**
+     * Constructor
+     * @param seed - same seed gives the same sequence of students
+     */
+    public StudentDataGenerator(long seed) {
+        random = new Random(seed);
+    }
+    
+    /**
+     * Creates the next fake student
+     * @param id - ID for the student
+     */
+    public Student next(int id) {
+        String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        int age = 5 + random.nextInt(15);
+        String grade = GRADES[random.nextInt(GRADES.length)];
+        String email = first.toLowerCase() + "." + last.toLowerCase().replace("'", "")
+                     + id + "@" + EMAIL_DOMAINS[random.nextInt(EMAIL_DOMAINS.length)];
+        return new Student(id, first + " " + last, age, grade, email);
+    }
+    
+    /**
+     * Creates students with IDs 1 to count
+     */
+    public List<Student> generate(int count) {
+        List<Student> students = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            students.add(next(id));
+        }
+        return students;
+    }
+    
+    /**
+     * Writes a students.csv style file with IDs 1 to count
+     * @param fileName - file to create (overwritten if it exists)
+     * @param count - number of students
+     * @param seed - generator seed
+     */
+    public static void writeCsv(String fileName, int count, long seed) throws IOException {
+        StudentDataGenerator generator = new StudentDataGenerator(seed);
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(fileName), StandardCharsets.UTF_8), 1 << 16))) {
+            writer.println("id,name,age,grade,email");
+            for (int id = 1; id <= count; id++) {
+                writer.println(generator.next(id).toCSV());
+            }
+        }
+    }
+}